@@ -0,0 +1,61 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+    /**
+     * Responses streamed for as long as it takes to read or write the whole table.
+     */
+    private static final Set<String> STREAMING_PATHS = new HashSet<>(Arrays.asList(
+            "/api/session/export",
+            "/api/user/import"));
+
+    @Value("${oc.app.streamingRequestTimeoutMs:1800000}")
+    private long streamingRequestTimeoutMs;
+
+    /**
+     * The streaming endpoints get {@code oc.app.streamingRequestTimeoutMs}; every other async
+     * request keeps the default timeout of the container.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new StreamingTimeoutInterceptor(streamingRequestTimeoutMs));
+    }
+
+    /**
+     * Called with the async request once its default timeout is set and before it is started,
+     * which is the last point where the timeout can still be changed.
+     */
+    static class StreamingTimeoutInterceptor implements CallableProcessingInterceptor {
+        private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+        private final long timeoutMs;
+
+        StreamingTimeoutInterceptor(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+            if (request instanceof AsyncWebRequest && servletRequest != null
+                    && STREAMING_PATHS.contains(urlPathHelper.getPathWithinApplication(servletRequest))) {
+                ((AsyncWebRequest) request).setTimeout(timeoutMs);
+            }
+        }
+    }
+}
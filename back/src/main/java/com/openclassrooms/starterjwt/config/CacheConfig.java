@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+    public static final String USER_DETAILS_CACHE = "userDetails";
+
+    public static final String SESSIONS_CACHE = "sessions";
+
+    @Value("${oc.app.userDetailsCacheTtlSeconds:300}")
+    private long userDetailsCacheTtlSeconds;
+
+    @Value("${oc.app.userDetailsCacheMaxSize:10000}")
+    private long userDetailsCacheMaxSize;
+
+    @Value("${oc.app.sessionCacheTtlSeconds:300}")
+    private long sessionCacheTtlSeconds;
+
+    @Value("${oc.app.sessionCacheMaxSize:10000}")
+    private long sessionCacheMaxSize;
+
+    /**
+     * Each cache gets its own size and TTL; stats are recorded so that Actuator publishes
+     * hit and miss counts for every cache registered here.
+     *
+     * <p>The manager is transaction aware: puts and evictions made within a transaction are
+     * applied once it commits, so that an eviction cannot be undone by a read of the data
+     * being replaced. The TTL bounds how long changes made by other nodes go unseen.
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(USER_DETAILS_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(userDetailsCacheTtlSeconds))
+                .maximumSize(userDetailsCacheMaxSize)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(SESSIONS_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(sessionCacheTtlSeconds))
+                .maximumSize(sessionCacheMaxSize)
+                .recordStats()
+                .build());
+
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
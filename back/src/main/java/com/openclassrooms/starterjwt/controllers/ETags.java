@@ -0,0 +1,95 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.repository.SessionVersion;
+import com.openclassrooms.starterjwt.repository.Version;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Entity tags derived from the updated_at columns, so that a conditional GET is answered from a
+ * one-column read before anything is loaded. updated_at is kept to the millisecond, and session
+ * tags also carry participant counts, which every booking changes. The tags are still weak:
+ * they follow the row rather than the bytes of the response.
+ */
+final class ETags {
+    /**
+     * Lets browsers keep the response, provided they revalidate it on every use.
+     */
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ETags() {
+    }
+
+    /**
+     * @param variant names the representation, which differs for instance with {@code include=users}
+     * @return null if {@code updatedAt} is null, as it is for a missing row
+     */
+    static String of(String variant, LocalDateTime updatedAt) {
+        if (updatedAt == null) {
+            return null;
+        }
+        return tag(variant, millis(updatedAt));
+    }
+
+    /**
+     * A tag which also changes with {@code counter}, such as the participant count of a session.
+     *
+     * @return null if {@code updatedAt} is null, as it is for a missing row
+     */
+    static String of(String variant, LocalDateTime updatedAt, Number counter) {
+        if (updatedAt == null) {
+            return null;
+        }
+        return tag(variant, counter, millis(updatedAt));
+    }
+
+    /**
+     * @return null if {@code version} is null
+     */
+    static String of(String variant, Version version) {
+        if (version == null) {
+            return null;
+        }
+        return tag(variant, version.getCount(), millis(version.getUpdatedAt()));
+    }
+
+    /**
+     * @return null if {@code version} counts no session, as it does for a missing one
+     */
+    static String of(String variant, SessionVersion version) {
+        if (version == null || version.getCount() == null || version.getCount() == 0) {
+            return null;
+        }
+        return tag(variant, version.getCount(), version.getParticipantCount(), millis(version.getUpdatedAt()));
+    }
+
+    private static long millis(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+    }
+
+    private static String tag(String variant, Object... parts) {
+        StringBuilder tag = new StringBuilder("W/\"").append(variant);
+        for (Object part : parts) {
+            tag.append('-').append(part != null ? part : 0);
+        }
+        return tag.append('"').toString();
+    }
+
+    static ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+    }
+
+    /**
+     * A 200 response carrying {@code etag}, or a plain one if there is none.
+     */
+    static ResponseEntity.BodyBuilder ok(String etag) {
+        if (etag == null) {
+            return ResponseEntity.ok();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CACHE_CONTROL);
+    }
+}
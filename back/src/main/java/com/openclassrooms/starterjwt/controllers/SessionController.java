@@ -1,16 +1,39 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.UnknownReferenceException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.BulkParticipationRequest;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.payload.response.ParticipantPageResponse;
+import com.openclassrooms.starterjwt.payload.response.SessionPageResponse;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.BulkParticipationService;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.WaitlistService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -19,34 +42,160 @@ import java.util.List;
 public class SessionController {
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final WaitlistService waitlistService;
+    private final BulkParticipationService bulkParticipationService;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             WaitlistService waitlistService,
+                             BulkParticipationService bulkParticipationService,
+                             UserMapper userMapper,
+                             ObjectMapper objectMapper) {
         this.sessionMapper = sessionMapper;
+        this.userMapper = userMapper;
+        this.objectMapper = objectMapper;
         this.sessionService = sessionService;
+        this.waitlistService = waitlistService;
+        this.bulkParticipationService = bulkParticipationService;
     }
 
+    /**
+     * Participant ids are only returned with {@code include=users}; {@link #findParticipants}
+     * pages through them instead. Answers 304 to a matching {@code If-None-Match} without
+     * loading the session. Without participant ids, the session and its tag come from the
+     * session cache, so that hot sessions do not reach the database.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id,
+                                      @RequestParam(value = "include", required = false) String include,
+                                      WebRequest request) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            Long sessionId = Long.valueOf(id);
+            if (!includesUsers(include)) {
+                SessionDto session = this.sessionService.findDtoById(sessionId);
+                String etag = ETags.of("session", session.getUpdatedAt(), session.getParticipantCount());
+                if (etag != null && request.checkNotModified(etag)) {
+                    return ETags.notModified(etag);
+                }
+
+                return ETags.ok(etag).body(session);
+            }
+
+            String etag = ETags.of("session+users", this.sessionService.findVersion(sessionId));
+            if (etag != null && request.checkNotModified(etag)) {
+                return ETags.notModified(etag);
+            }
+
+            Session session = this.sessionService.getById(sessionId);
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ETags.ok(etag).body(this.sessionMapper.toDto(session));
+        } catch (NotFoundException e) {
+            return ResponseEntity.notFound().build();
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Without any paging parameter, returns every session as a plain array, as older clients
+     * expect. With at least one, returns a page ordered by (date, id) and the cursor of the
+     * next one. Either way, the ETag is the version of the whole table, so that a client
+     * polling the list gets a 304 for as long as no session changes.
+     */
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "size", required = false) Integer size,
+                                     @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                     @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                     @RequestParam(value = "teacherId", required = false) Long teacherId,
+                                     @RequestParam(value = "include", required = false) String include,
+                                     WebRequest request) {
+        boolean includeUsers = includesUsers(include);
+        String etag = ETags.of(includeUsers ? "sessions+users" : "sessions", this.sessionService.findVersion());
+        if (etag != null && request.checkNotModified(etag)) {
+            return ETags.notModified(etag);
+        }
+
+        if (cursor == null && size == null && from == null && to == null && teacherId == null) {
+            return ETags.ok(etag).body(this.sessionService.findAllSummaries(includeUsers));
+        }
+
+        SessionService.Page page = this.sessionService.findPage(cursor, size, from, to, teacherId, includeUsers);
+
+        return ETags.ok(etag).body(new SessionPageResponse(page.getSessions(), page.getNextCursor()));
+    }
+
+    /**
+     * Every session as a JSON array, for admins only. Sessions are written one by one as they
+     * are read, so the response is never held in memory whatever the number of sessions.
+     * Participant ids are left out; {@link #findParticipants} pages through them.
+     */
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        if (!(principal instanceof UserDetailsImpl) || !Boolean.TRUE.equals(((UserDetailsImpl) principal).getAdmin())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream);
+            generator.writeStartArray();
+            this.sessionService.forEachSession(session -> {
+                try {
+                    generator.writeObject(this.sessionMapper.toDtoWithoutUsers(session));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            // Only closed on success: closing would also end the array, passing a failed export off as complete.
+            generator.close();
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Sessions whose name or description match every word of {@code q}, as whole words or
+     * prefixes, accents ignored. Best matches first.
+     */
+    @GetMapping("search")
+    public ResponseEntity<?> search(@RequestParam("q") String q,
+                                    @RequestParam(value = "limit", required = false) Integer limit) {
+        List<SessionDto> sessions = this.sessionService.search(q, limit).stream()
+                .map(this.sessionMapper::toDtoWithoutUsers)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok().body(sessions);
+    }
+
+    /**
+     * Participants of the session ordered by id, one page at a time.
+     */
+    @GetMapping("{id}/participants")
+    public ResponseEntity<?> findParticipants(@PathVariable("id") String id,
+                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                              @RequestParam(value = "size", required = false) Integer size) {
+        try {
+            SessionService.ParticipantPage page = this.sessionService.findParticipants(Long.valueOf(id), cursor, size);
+
+            return ResponseEntity.ok().body(
+                    new ParticipantPageResponse(this.userMapper.toDto(page.getUsers()), page.getNextCursor()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+    private static boolean includesUsers(String include) {
+        return include != null && Arrays.asList(include.split(",")).contains("users");
     }
 
     @PostMapping()
@@ -107,4 +256,57 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Enrolls a list of (sessionId, userId) pairs, for admins only. Every pair gets its own
+     * outcome in the report; rejected pairs do not prevent the others from being enrolled.
+     */
+    @PostMapping("participate")
+    public ResponseEntity<?> participateAll(@Valid @RequestBody BulkParticipationRequest request) {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        if (!(principal instanceof UserDetailsImpl) || !Boolean.TRUE.equals(((UserDetailsImpl) principal).getAdmin())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok().body(this.bulkParticipationService.enroll(request.getParticipations()));
+    }
+
+    /**
+     * Queues the user for a full session. The seat is given in the background, which the client
+     * follows with {@link #waitlistPosition} rather than by retrying to participate.
+     */
+    @PostMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> joinWaitlist(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            return ResponseEntity.ok().body(this.waitlistService.join(Long.parseLong(id), Long.parseLong(userId)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> waitlistPosition(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            return ResponseEntity.ok().body(this.waitlistService.getPosition(Long.parseLong(id), Long.parseLong(userId)));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("{id}/waitlist/{userId}")
+    public ResponseEntity<?> leaveWaitlist(@PathVariable("id") String id, @PathVariable("userId") String userId) {
+        try {
+            this.waitlistService.leave(Long.parseLong(id), Long.parseLong(userId));
+
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @ExceptionHandler(UnknownReferenceException.class)
+    public ResponseEntity<MessageResponse> unknownReference(UnknownReferenceException e) {
+        return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+    }
 }
@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.controllers;
+
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.exception.UnknownReferenceException;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/series")
+public class SessionSeriesController {
+    private final SessionSeriesService sessionSeriesService;
+    private final SessionSeriesMapper sessionSeriesMapper;
+
+
+    public SessionSeriesController(SessionSeriesService sessionSeriesService,
+                                   SessionSeriesMapper sessionSeriesMapper) {
+        this.sessionSeriesService = sessionSeriesService;
+        this.sessionSeriesMapper = sessionSeriesMapper;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+        try {
+            SessionSeries series = this.sessionSeriesService.getById(Long.valueOf(id));
+
+            if (series == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Creates the series and its sessions of the coming months; later ones are created as
+     * time passes.
+     */
+    @PostMapping()
+    public ResponseEntity<?> create(@Valid @RequestBody SessionSeriesDto sessionSeriesDto) {
+        SessionSeries series = this.sessionSeriesService.create(this.sessionSeriesMapper.toEntity(sessionSeriesDto));
+
+        return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+    }
+
+    /**
+     * Changes the name, description, teacher and capacity of the series and of its sessions to
+     * come. The schedule, end and exceptions given are ignored.
+     */
+    @PutMapping("{id}")
+    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionSeriesDto sessionSeriesDto) {
+        try {
+            SessionSeries series = this.sessionSeriesService.update(Long.parseLong(id),
+                    this.sessionSeriesMapper.toEntity(sessionSeriesDto));
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @ExceptionHandler(UnknownReferenceException.class)
+    public ResponseEntity<MessageResponse> unknownReference(UnknownReferenceException e) {
+        return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+    }
+}
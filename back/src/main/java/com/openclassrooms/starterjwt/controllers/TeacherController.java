@@ -2,9 +2,14 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
 import java.util.List;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -22,24 +27,51 @@ public class TeacherController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
-            Teacher teacher = this.teacherService.findById(Long.valueOf(id));
+            Long teacherId = Long.valueOf(id);
+            String etag = ETags.of("teacher", this.teacherService.findUpdatedAt(teacherId));
+            if (etag != null && request.checkNotModified(etag)) {
+                return ETags.notModified(etag);
+            }
+
+            Teacher teacher = this.teacherService.findById(teacherId);
 
             if (teacher == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.teacherMapper.toDto(teacher));
+            return ETags.ok(etag).body(this.teacherMapper.toDto(teacher));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest request) {
+        String etag = ETags.of("teachers", this.teacherService.findVersion());
+        if (etag != null && request.checkNotModified(etag)) {
+            return ETags.notModified(etag);
+        }
+
         List<Teacher> teachers = this.teacherService.findAll();
 
-        return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
+        return ETags.ok(etag).body(this.teacherMapper.toDto(teachers));
+    }
+
+    /**
+     * Reloads the teachers served from memory, for admins only, when the table was changed
+     * directly and the change must show up before the next scheduled refresh.
+     */
+    @PostMapping("reload")
+    public ResponseEntity<?> reload() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        if (!(principal instanceof UserDetailsImpl) || !Boolean.TRUE.equals(((UserDetailsImpl) principal).getAdmin())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        this.teacherService.reload();
+        return ResponseEntity.ok().build();
     }
 }
@@ -1,40 +1,66 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.UserImportReport;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.UserImportService;
 import com.openclassrooms.starterjwt.services.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Objects;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
+    private static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
     private final UserMapper userMapper;
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
+                             UserMapper userMapper,
+                             UserImportService userImportService,
+                             ObjectMapper objectMapper) {
         this.userMapper = userMapper;
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
-            User user = this.userService.findById(Long.valueOf(id));
+            Long userId = Long.valueOf(id);
+            String etag = ETags.of("user", this.userService.findUpdatedAt(userId));
+            if (etag != null && request.checkNotModified(etag)) {
+                return ETags.notModified(etag);
+            }
+
+            User user = this.userService.findById(userId);
 
             if (user == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.userMapper.toDto(user));
+            return ETags.ok(etag).body(this.userMapper.toDto(user));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -61,4 +87,45 @@ public class UserController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    /**
+     * Registers users in bulk, for admins only. The body is either CSV with an
+     * email,firstName,lastName,password header, or one SignupRequest JSON object per line.
+     * The report is streamed back as NDJSON while the import runs: one line per row, then a last
+     * line with the totals, so neither side holds the whole report. A report without its totals
+     * line was interrupted.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<StreamingResponseBody> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                         InputStream body) throws IOException {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+
+        if (!(principal instanceof UserDetailsImpl) || !Boolean.TRUE.equals(((UserDetailsImpl) principal).getAdmin())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        UserImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+
+        UserImportService.Source source = this.userImportService.open(body, format);
+
+        StreamingResponseBody report = outputStream -> {
+            JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            UserImportReport totals = this.userImportService.importUsers(source, row -> {
+                try {
+                    generator.writeObject(row);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeObject(totals);
+            generator.writeRaw('\n');
+            generator.close();
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(report);
+    }
 }
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -31,9 +32,21 @@ public class SessionDto {
     @Size(max = 2500)
     private String description;
 
+    /**
+     * Participant ids, only filled in when asked for with {@code include=users}. Left null in
+     * an update, the participants are kept as they are.
+     */
     private List<Long> users;
 
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
+
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Read only: maintained by the server as participants join and leave.
+     */
+    private Integer participantCount;
 }
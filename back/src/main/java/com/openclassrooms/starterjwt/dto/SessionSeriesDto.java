@@ -0,0 +1,66 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSeriesDto {
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    private Long teacher_id;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Recurrence rule such as {@code FREQ=WEEKLY;BYDAY=TU}.
+     */
+    @NotBlank
+    @Size(max = 255)
+    private String recurrence;
+
+    /**
+     * Date and time of the first occurrence.
+     */
+    @NotNull
+    private LocalDateTime start;
+
+    /**
+     * Last day on which the series is given, null for a series without end.
+     */
+    private LocalDate end;
+
+    /**
+     * Days on which the series is not given.
+     */
+    private Set<LocalDate> exceptions;
+
+    /**
+     * Read only: occurrences starting before this instant exist as sessions.
+     */
+    private LocalDateTime materializedUntil;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
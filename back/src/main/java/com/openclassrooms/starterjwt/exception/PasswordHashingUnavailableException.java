@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the password hashing pool is saturated; clients should retry after
+ * {@link #getRetryAfterSeconds()} seconds.
+ */
+@Getter
+public class PasswordHashingUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public PasswordHashingUnavailableException(long retryAfterSeconds) {
+        super("Password hashing is saturated, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
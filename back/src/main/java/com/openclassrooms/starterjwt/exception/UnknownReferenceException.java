@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.exception;
+
+import java.util.Collection;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A DTO references entities that do not exist, such as participants of a session.
+ */
+@ResponseStatus(value= HttpStatus.BAD_REQUEST)
+public class UnknownReferenceException extends RuntimeException {
+    private final String type;
+
+    private final Collection<Long> ids;
+
+    public UnknownReferenceException(String type, Collection<Long> ids) {
+        super("Unknown " + type + " ids: " + ids);
+        this.type = type;
+        this.ids = ids;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Collection<Long> getIds() {
+        return ids;
+    }
+}
@@ -0,0 +1,62 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.exception.UnknownReferenceException;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+@Component
+@Mapper(componentModel = "spring")
+public abstract class SessionSeriesMapper implements EntityMapper<SessionSeriesDto, SessionSeries> {
+
+    @Autowired
+    TeacherService teacherService;
+
+    @Mappings({
+            @Mapping(target = "teacher", expression = "java(resolveTeacher(sessionSeriesDto.getTeacher_id()))"),
+            @Mapping(source = "start", target = "startAt"),
+            @Mapping(target = "endsAt", expression = "java(endsAt(sessionSeriesDto.getEnd()))"),
+            @Mapping(target = "materializedUntil", ignore = true),
+    })
+    public abstract SessionSeries toEntity(SessionSeriesDto sessionSeriesDto);
+
+    @Mappings({
+            @Mapping(source = "sessionSeries.teacher.id", target = "teacher_id"),
+            @Mapping(source = "startAt", target = "start"),
+            @Mapping(target = "end", expression = "java(end(sessionSeries.getEndsAt()))"),
+    })
+    public abstract SessionSeriesDto toDto(SessionSeries sessionSeries);
+
+    protected Teacher resolveTeacher(Long teacherId) {
+        if (teacherId == null) {
+            return null;
+        }
+
+        Teacher teacher = this.teacherService.findById(teacherId);
+        if (teacher == null) {
+            throw new UnknownReferenceException("teacher", Collections.singletonList(teacherId));
+        }
+        return teacher;
+    }
+
+    /**
+     * The DTO gives the last day of the series, the entity the instant its occurrences end.
+     */
+    protected LocalDateTime endsAt(LocalDate end) {
+        return end != null ? end.plusDays(1).atStartOfDay() : null;
+    }
+
+    protected LocalDate end(LocalDateTime endsAt) {
+        return endsAt != null ? endsAt.toLocalDate().minusDays(1) : null;
+    }
+}
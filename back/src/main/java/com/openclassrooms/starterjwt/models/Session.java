@@ -8,6 +8,7 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -41,17 +42,34 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    @ToString.Exclude
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
             inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+    @ToString.Exclude
     private List<User> users;
 
+    /**
+     * Maximum number of participants, null for no limit.
+     */
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Number of PARTICIPATE rows of the session, kept in step with them so that a booking can
+     * check and take a seat in one conditional update. Written on insert only: afterwards, only
+     * the statements of {@link com.openclassrooms.starterjwt.repository.ParticipationRepository}
+     * change it, so that saving a session never writes back a count read before a booking.
+     */
+    @Column(name = "participant_count", nullable = false, updatable = false)
+    private int participantCount;
+
     @CreatedDate
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,96 @@
+package com.openclassrooms.starterjwt.models;
+
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * A class given on a regular schedule. Its occurrences are plain {@link Session} rows, which
+ * are created ahead of time up to {@link #materializedUntil} only.
+ */
+@Entity
+@Table(name = "SESSION_SERIES")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    @ToString.Exclude
+    private Teacher teacher;
+
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Recurrence rule, in the form read by {@link com.openclassrooms.starterjwt.services.RecurrenceRule}.
+     */
+    @NotBlank
+    @Size(max = 255)
+    private String recurrence;
+
+    /**
+     * Date and time of the first occurrence.
+     */
+    @NotNull
+    @Column(name = "start_at")
+    private LocalDateTime startAt;
+
+    /**
+     * Occurrences start strictly before this instant; null for a series without end.
+     */
+    @Column(name = "ends_at")
+    private LocalDateTime endsAt;
+
+    /**
+     * Days on which the series is not given.
+     */
+    @ElementCollection
+    @CollectionTable(name = "SESSION_SERIES_EXCEPTIONS", joinColumns = @JoinColumn(name = "series_id"))
+    @Column(name = "date")
+    @ToString.Exclude
+    private Set<LocalDate> exceptions;
+
+    /**
+     * Every occurrence starting before this instant has been created.
+     */
+    @Column(name = "materialized_until", nullable = false)
+    private LocalDateTime materializedUntil;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+public class BulkParticipationRequest {
+  public static final int MAX_PARTICIPATIONS = 1000;
+
+  @NotEmpty
+  @Size(max = MAX_PARTICIPATIONS)
+  private List<@Valid @NotNull Participation> participations;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Participation {
+    @NotNull
+    private Long sessionId;
+
+    @NotNull
+    private Long userId;
+  }
+}
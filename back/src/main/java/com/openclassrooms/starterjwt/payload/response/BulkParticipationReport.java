@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+@Getter
+public class BulkParticipationReport {
+  public enum Status {
+    ENROLLED, ALREADY_PARTICIPATING, DUPLICATE, UNKNOWN_SESSION, UNKNOWN_USER, SESSION_FULL
+  }
+
+  private int enrolled;
+
+  private int rejected;
+
+  private final List<Row> rows = new ArrayList<>();
+
+  public void add(Row row) {
+    if (row.getStatus() == Status.ENROLLED) {
+      enrolled++;
+    } else {
+      rejected++;
+    }
+    rows.add(row);
+  }
+
+  public int getTotal() {
+    return rows.size();
+  }
+
+  @Data
+  @AllArgsConstructor
+  public static class Row {
+    private Long sessionId;
+
+    private Long userId;
+
+    private Status status;
+  }
+}
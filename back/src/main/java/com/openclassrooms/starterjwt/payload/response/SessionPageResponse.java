@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import java.util.List;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SessionPageResponse {
+  private List<SessionDto> items;
+
+  /**
+   * Opaque position to pass back as {@code cursor} for the next page, null on the last page.
+   */
+  private String nextCursor;
+}
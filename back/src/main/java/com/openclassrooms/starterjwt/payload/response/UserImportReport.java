@@ -0,0 +1,50 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+
+/**
+ * Totals of a user import. The rows themselves are streamed as they are processed.
+ */
+@Getter
+public class UserImportReport {
+  public enum Status {
+    IMPORTED, DUPLICATE, INVALID
+  }
+
+  private int imported;
+
+  private int duplicates;
+
+  private int invalid;
+
+  public void add(Row row) {
+    switch (row.getStatus()) {
+      case IMPORTED:
+        imported++;
+        break;
+      case DUPLICATE:
+        duplicates++;
+        break;
+      default:
+        invalid++;
+    }
+  }
+
+  public int getTotal() {
+    return imported + duplicates + invalid;
+  }
+
+  @Data
+  @AllArgsConstructor
+  public static class Row {
+    private long line;
+
+    private String email;
+
+    private Status status;
+
+    private String message;
+  }
+}
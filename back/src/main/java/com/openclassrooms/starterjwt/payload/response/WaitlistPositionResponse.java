@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class WaitlistPositionResponse {
+  private Long sessionId;
+
+  private Long userId;
+
+  /**
+   * 1-based position in the queue, null once the user has been given a seat.
+   */
+  private Integer position;
+
+  private boolean participating;
+}
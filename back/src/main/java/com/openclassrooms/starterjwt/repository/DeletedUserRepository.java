@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.openclassrooms.starterjwt.models.DeletedUser;
+
+@Repository
+public interface DeletedUserRepository extends JpaRepository<DeletedUser, Long> {
+  @Query("select d from DeletedUser d where d.id > :afterId and d.expiresAt > :now order by d.id")
+  List<DeletedUser> findActiveAfter(@Param("afterId") Long afterId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query("delete from DeletedUser d where d.expiresAt < :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
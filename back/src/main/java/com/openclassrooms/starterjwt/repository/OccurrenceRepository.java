@@ -0,0 +1,83 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.openclassrooms.starterjwt.models.SessionSeries;
+
+/**
+ * Set-based writes to the SESSIONS rows of a series, which never load a {@code Session}.
+ * Occurrences are inserted with JDBC batches, which the driver rewrites into multi-row
+ * inserts, and edited with one statement whatever their number. Callers hold the lock of the
+ * series row.
+ */
+@Repository
+public class OccurrenceRepository {
+  private final JdbcTemplate jdbcTemplate;
+
+  public OccurrenceRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Inserts one session per date, copied from the series, sending at most {@code batchSize}
+   * rows per round trip.
+   */
+  public void insertAll(SessionSeries series, List<LocalDateTime> dates, int batchSize) {
+    Long teacherId = series.getTeacher() != null ? series.getTeacher().getId() : null;
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO SESSIONS (name, description, date, teacher_id, capacity, series_id) VALUES (?, ?, ?, ?, ?, ?)",
+        dates, batchSize, (ps, date) -> {
+          ps.setString(1, series.getName());
+          ps.setString(2, series.getDescription());
+          ps.setTimestamp(3, Timestamp.valueOf(date));
+          ps.setObject(4, teacherId, Types.INTEGER);
+          ps.setObject(5, series.getCapacity(), Types.INTEGER);
+          ps.setLong(6, series.getId());
+        });
+  }
+
+  /**
+   * @return the ids of the occurrences starting between {@code from} included and
+   * {@code until} excluded, all of them to come when {@code until} is null
+   */
+  public List<Long> findIds(Long seriesId, LocalDateTime from, LocalDateTime until) {
+    if (until == null) {
+      return jdbcTemplate.queryForList(
+          "SELECT id FROM SESSIONS WHERE series_id = ? AND date >= ?", Long.class, seriesId, Timestamp.valueOf(from));
+    }
+    return jdbcTemplate.queryForList(
+        "SELECT id FROM SESSIONS WHERE series_id = ? AND date >= ? AND date < ?",
+        Long.class, seriesId, Timestamp.valueOf(from), Timestamp.valueOf(until));
+  }
+
+  /**
+   * Copies the name, description, teacher and capacity of the series to its occurrences
+   * starting from {@code from}, in one statement.
+   *
+   * @return the number of updated occurrences
+   */
+  public int updateFrom(SessionSeries series, LocalDateTime from) {
+    Long teacherId = series.getTeacher() != null ? series.getTeacher().getId() : null;
+    return jdbcTemplate.update(
+        "UPDATE SESSIONS SET name = ?, description = ?, teacher_id = ?, capacity = ? WHERE series_id = ? AND date >= ?",
+        series.getName(), series.getDescription(), teacherId, series.getCapacity(), series.getId(),
+        Timestamp.valueOf(from));
+  }
+
+  /**
+   * Occurrences starting from {@code from} with more participants than seats. The rows are
+   * locked by the update which set their capacity, so no booking can change the answer.
+   */
+  public int countOverbookedFrom(Long seriesId, LocalDateTime from) {
+    Integer count = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM SESSIONS WHERE series_id = ? AND date >= ? AND participant_count > capacity",
+        Integer.class, seriesId, Timestamp.valueOf(from));
+    return count != null ? count : 0;
+  }
+}
@@ -0,0 +1,159 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Single-row writes to the PARTICIPATE join table, so that joining or leaving a session never
+ * loads nor rewrites its other participants. The (session_id, user_id) primary key and the
+ * foreign keys of the table do the validation. Plain JDBC is used because, unlike JPA, it
+ * reports a duplicate key as a {@link org.springframework.dao.DuplicateKeyException}.
+ * <p>
+ * SESSIONS.participant_count mirrors the rows of each session. A booking takes its seat with a
+ * conditional update of that counter, which also locks the session row until the transaction
+ * ends, so concurrent bookings for the same session are serialized by the database, whichever
+ * node they run on.
+ */
+@Repository
+public class ParticipationRepository {
+  private final JdbcTemplate jdbcTemplate;
+
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+  public ParticipationRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+  }
+
+  /**
+   * @throws org.springframework.dao.DuplicateKeyException if the user already participates
+   * @throws org.springframework.dao.DataIntegrityViolationException if the session or the user does not exist
+   */
+  public void insert(Long sessionId, Long userId) {
+    jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", sessionId, userId);
+  }
+
+  /**
+   * Increments the participant count unless the session is full. A seat freed while users are
+   * waiting belongs to the head of the waitlist, so it is not given to a direct booking. Must
+   * run in the same transaction as the matching {@link #insert(Long, Long)}.
+   *
+   * @return false if the session is full, has a waitlist or does not exist
+   */
+  public boolean reserveSeat(Long sessionId) {
+    return jdbcTemplate.update(
+        "UPDATE SESSIONS SET participant_count = participant_count + 1"
+            + " WHERE id = ? AND (capacity IS NULL OR participant_count < capacity)"
+            + " AND NOT EXISTS (SELECT 1 FROM WAITLIST w WHERE w.session_id = ?)", sessionId, sessionId) > 0;
+  }
+
+  /**
+   * Inserts several participations of one session and takes their seats. The caller must hold
+   * the session row lock and have checked the free seats.
+   */
+  public void insertAll(Long sessionId, List<Long> userIds) {
+    insertAll(Collections.singletonMap(sessionId, userIds));
+  }
+
+  /**
+   * Inserts the participations of several sessions and takes their seats, in two batched
+   * statements. The caller must hold the session row locks and have checked the free seats.
+   */
+  public void insertAll(Map<Long, List<Long>> userIdsBySession) {
+    List<Object[]> participations = new ArrayList<>();
+    List<Object[]> seats = new ArrayList<>(userIdsBySession.size());
+    userIdsBySession.forEach((sessionId, userIds) -> {
+      userIds.forEach(userId -> participations.add(new Object[] {sessionId, userId}));
+      seats.add(new Object[] {userIds.size(), sessionId});
+    });
+
+    jdbcTemplate.batchUpdate("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", participations);
+    jdbcTemplate.batchUpdate("UPDATE SESSIONS SET participant_count = participant_count + ? WHERE id = ?", seats);
+  }
+
+  /**
+   * Locks the rows of the given sessions, in id order so that concurrent callers cannot
+   * deadlock, and returns their free seats. Unlimited sessions report {@link Integer#MAX_VALUE};
+   * unknown ones are missing from the map.
+   */
+  public Map<Long, Integer> lockFreeSeats(Collection<Long> sessionIds) {
+    Map<Long, Integer> freeSeats = new HashMap<>();
+    namedJdbcTemplate.query(
+        "SELECT id, capacity, participant_count FROM SESSIONS WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+        new MapSqlParameterSource("ids", sessionIds),
+        rs -> {
+          int capacity = rs.getInt("capacity");
+          freeSeats.put(rs.getLong("id"),
+              rs.wasNull() ? Integer.MAX_VALUE : Math.max(0, capacity - rs.getInt("participant_count")));
+        });
+    return freeSeats;
+  }
+
+  /**
+   * @return the participants among the given users of each of the given sessions
+   */
+  public Map<Long, Set<Long>> findParticipants(Collection<Long> sessionIds, Collection<Long> userIds) {
+    Map<Long, Set<Long>> participants = new HashMap<>();
+    namedJdbcTemplate.query(
+        "SELECT session_id, user_id FROM PARTICIPATE WHERE session_id IN (:sessionIds) AND user_id IN (:userIds)",
+        new MapSqlParameterSource("sessionIds", sessionIds).addValue("userIds", userIds),
+        rs -> {
+          participants.computeIfAbsent(rs.getLong("session_id"), id -> new HashSet<>()).add(rs.getLong("user_id"));
+        });
+    return participants;
+  }
+
+  public boolean exists(Long sessionId, Long userId) {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+        "SELECT EXISTS (SELECT 1 FROM PARTICIPATE WHERE session_id = ? AND user_id = ?)", Boolean.class,
+        sessionId, userId));
+  }
+
+  /**
+   * Resets the participant count to the PARTICIPATE rows of the session, once they have been
+   * replaced. The caller must hold the session row lock.
+   */
+  public void recountSeats(Long sessionId) {
+    jdbcTemplate.update(
+        "UPDATE SESSIONS SET participant_count = (SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?) WHERE id = ?",
+        sessionId, sessionId);
+  }
+
+  public void releaseSeat(Long sessionId) {
+    jdbcTemplate.update(
+        "UPDATE SESSIONS SET participant_count = participant_count - 1 WHERE id = ? AND participant_count > 0", sessionId);
+  }
+
+  /**
+   * Removes the user from every session, giving back the seats, before the user is deleted.
+   *
+   * @return the ids of the sessions the user participated in
+   */
+  public List<Long> deleteAllForUser(Long userId) {
+    List<Long> sessionIds = jdbcTemplate.queryForList(
+        "SELECT session_id FROM PARTICIPATE WHERE user_id = ?", Long.class, userId);
+    jdbcTemplate.update(
+        "UPDATE SESSIONS SET participant_count = participant_count - 1"
+            + " WHERE id IN (SELECT session_id FROM PARTICIPATE WHERE user_id = ?) AND participant_count > 0", userId);
+    jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE user_id = ?", userId);
+    return sessionIds;
+  }
+
+  /**
+   * @return false if the user did not participate
+   */
+  public boolean delete(Long sessionId, Long userId) {
+    return jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ? AND user_id = ?", sessionId, userId) > 0;
+  }
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.openclassrooms.starterjwt.models.RefreshToken;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+  Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+  @Modifying
+  @Query("delete from RefreshToken r where r.tokenHash = :tokenHash")
+  int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+  @Modifying
+  @Query("delete from RefreshToken r where r.expiresAt < :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+  boolean existsByTokenHashAndExpiresAtAfter(String tokenHash, LocalDateTime now);
+
+  @Query("select r.tokenHash from RevokedToken r where r.expiresAt > :now")
+  List<String> findActiveTokenHashes(@Param("now") LocalDateTime now);
+
+  @Query("select r from RevokedToken r where r.id > :afterId and r.expiresAt > :now order by r.id")
+  List<RevokedToken> findActiveAfter(@Param("afterId") Long afterId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query("delete from RevokedToken r where r.expiresAt < :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
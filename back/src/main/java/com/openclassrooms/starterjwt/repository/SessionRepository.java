@@ -1,9 +1,74 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionRepositoryCustom {
+  /**
+   * Locks the session row until the transaction ends, so that no booking takes or frees a seat
+   * while the session is being edited.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select s from Session s where s.id = :id")
+  Optional<Session> findForUpdate(@Param("id") Long id);
+
+  /**
+   * Participants of a session ordered by id, starting strictly after {@code afterId} when it
+   * is given. Walks the (session_id, user_id) primary key of PARTICIPATE.
+   */
+  @Query("select u from Session s join s.users u where s.id = :sessionId and (:afterId is null or u.id > :afterId) order by u.id")
+  List<User> findParticipants(@Param("sessionId") Long sessionId, @Param("afterId") Long afterId, Pageable pageable);
+
+  /**
+   * The id, name and description of every session, for the search index.
+   */
+  @Query("select s.id, s.name, s.description from Session s")
+  List<Object[]> findSearchableText();
+
+  /**
+   * Checksum of the text read by {@link #findSearchableText}, which changes with any session
+   * created, deleted, renamed or described anew, but not with bookings.
+   */
+  @Query(nativeQuery = true, value = "SELECT CONCAT(COUNT(*), ':',"
+      + " COALESCE(SUM(CRC32(CONCAT_WS(CHAR(0), id, name, description))), 0)) FROM SESSIONS")
+  String findSearchableTextVersion();
+
+  /**
+   * Version of a single session, counting no row if it does not exist. Bookings update the
+   * participant counter of the row, which moves updated_at as well.
+   */
+  @Query("select count(s) as count, max(s.updatedAt) as updatedAt, sum(s.participantCount) as participantCount"
+      + " from Session s where s.id = :id")
+  SessionVersion findVersion(@Param("id") Long id);
+
+  @Query("select count(s) as count, max(s.updatedAt) as updatedAt, sum(s.participantCount) as participantCount"
+      + " from Session s")
+  SessionVersion findVersion();
+
+  /**
+   * Every session in id order, read row by row: a fetch size of Integer.MIN_VALUE makes the
+   * MySQL driver stream the result set instead of buffering it. Must be consumed and closed
+   * within a transaction, and no other statement can run on the connection meanwhile, so
+   * lazy associations must not be initialized while the stream is open.
+   */
+  @QueryHints({
+      @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+      @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+  })
+  @Query("select s from Session s order by s.id")
+  Stream<Session> streamAll();
 }
@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+
+public interface SessionRepositoryCustom {
+  /**
+   * Reads sessions straight into DTOs, ordered by (date, id), without loading any entity.
+   * Filters are ignored when null; the page starts strictly after (afterDate, afterId) when
+   * both are given, and is unbounded when {@code limit} is null. Participant ids are only read
+   * when {@code includeUsers} is set; otherwise {@link SessionDto#getUsers()} is null.
+   */
+  List<SessionDto> findSummaries(Long teacherId, Date from, Date to, Date afterDate, Long afterId, Integer limit,
+                                 boolean includeUsers);
+}
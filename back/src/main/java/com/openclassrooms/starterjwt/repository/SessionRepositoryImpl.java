@@ -0,0 +1,131 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+
+/**
+ * Read path of the session list. It runs at most two statements whatever the number of rows:
+ * one projection of the session columns, including the participant count kept on SESSIONS,
+ * and, only when participant ids are asked for, one read of the matching PARTICIPATE rows. No
+ * User is ever hydrated just to expose its id.
+ *
+ * <p>Pages are selected by keyset: the position is a predicate on the sort key rather than an
+ * offset, so every page is a range scan however deep the client pages. Predicates are only
+ * added for the filters actually given, so that MySQL can pick the matching index: SESSIONS
+ * (date) for date ranges, SESSIONS (teacher_id, date) once a teacher is given. Both end with
+ * the primary key, which makes them already sorted by (date, id).
+ */
+class SessionRepositoryImpl implements SessionRepositoryCustom {
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<SessionDto> findSummaries(Long teacherId, Date from, Date to, Date afterDate, Long afterId, Integer limit,
+                                        boolean includeUsers) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = cb.createTupleQuery();
+    Root<Session> session = query.from(Session.class);
+    // The id of the association resolves to SESSIONS.teacher_id, without joining TEACHERS.
+    Path<Long> teacher = session.get("teacher").get("id");
+    Path<Date> date = session.get("date");
+    Path<Long> id = session.get("id");
+
+    List<Predicate> predicates = new ArrayList<>();
+    if (teacherId != null) {
+      predicates.add(cb.equal(teacher, teacherId));
+    }
+    if (from != null) {
+      predicates.add(cb.greaterThanOrEqualTo(date, from));
+    }
+    if (to != null) {
+      predicates.add(cb.lessThan(date, to));
+    }
+    if (afterDate != null && afterId != null) {
+      predicates.add(cb.or(
+          cb.greaterThan(date, afterDate),
+          cb.and(cb.equal(date, afterDate), cb.greaterThan(id, afterId))));
+    }
+
+    query.multiselect(
+            id,
+            session.get("name"),
+            date,
+            teacher,
+            session.get("description"),
+            session.get("createdAt"),
+            session.get("updatedAt"),
+            session.get("capacity"),
+            session.get("participantCount"))
+        .where(predicates.toArray(new Predicate[0]))
+        .orderBy(cb.asc(date), cb.asc(id));
+
+    TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+    if (limit != null) {
+      typedQuery.setMaxResults(limit);
+    }
+
+    List<Tuple> rows = typedQuery.getResultList();
+    List<SessionDto> sessions = new ArrayList<>(rows.size());
+    Map<Long, SessionDto> sessionsById = new HashMap<>();
+    for (Tuple row : rows) {
+      SessionDto dto = new SessionDto(
+          row.get(0, Long.class),
+          row.get(1, String.class),
+          row.get(2, Date.class),
+          row.get(3, Long.class),
+          row.get(4, String.class),
+          includeUsers ? new ArrayList<>() : null,
+          row.get(5, LocalDateTime.class),
+          row.get(6, LocalDateTime.class),
+          row.get(7, Integer.class),
+          row.get(8, Integer.class));
+      sessions.add(dto);
+      sessionsById.put(dto.getId(), dto);
+    }
+
+    if (includeUsers && !sessions.isEmpty()) {
+      addParticipants(sessionsById, predicates.isEmpty() && limit == null);
+    }
+
+    return sessions;
+  }
+
+  /**
+   * When every session was read, the whole table is cheaper to read than a list of every id.
+   */
+  @SuppressWarnings("unchecked")
+  private void addParticipants(Map<Long, SessionDto> sessionsById, boolean allSessions) {
+    Query query;
+    if (allSessions) {
+      query = entityManager.createNativeQuery("SELECT session_id, user_id FROM PARTICIPATE");
+    } else {
+      query = entityManager.createNativeQuery("SELECT session_id, user_id FROM PARTICIPATE WHERE session_id IN (:ids)")
+          .setParameter("ids", sessionsById.keySet());
+    }
+
+    for (Object[] row : (List<Object[]>) query.getResultList()) {
+      SessionDto session = sessionsById.get(((Number) row[0]).longValue());
+      if (session != null && row[1] != null) {
+        session.getUsers().add(((Number) row[1]).longValue());
+      }
+    }
+  }
+}
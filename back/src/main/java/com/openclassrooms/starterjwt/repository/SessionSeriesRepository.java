@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SessionSeriesRepository extends JpaRepository<SessionSeries, Long> {
+  /**
+   * Locks the series row until the transaction ends, so that its occurrences are created and
+   * edited by one transaction at a time.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select s from SessionSeries s where s.id = :id")
+  Optional<SessionSeries> findForUpdate(@Param("id") Long id);
+
+  /**
+   * Series not yet materialized up to {@code horizon} and not yet over.
+   */
+  @Query("select s.id from SessionSeries s where s.materializedUntil < :horizon"
+      + " and (s.endsAt is null or s.materializedUntil < s.endsAt)")
+  List<Long> findIdsToExtend(@Param("horizon") LocalDateTime horizon);
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * {@link Version} of sessions, which also carries their participant counts: two bookings on a
+ * session may well fall within the same millisecond of updated_at, but not leave the count as
+ * it was.
+ */
+public interface SessionVersion extends Version {
+  /**
+   * @return the participants summed over the sessions counted, null if there are none
+   */
+  Long getParticipantCount();
+}
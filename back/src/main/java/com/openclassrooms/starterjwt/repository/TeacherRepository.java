@@ -2,8 +2,21 @@ package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface TeacherRepository  extends JpaRepository<Teacher, Long> {
+  List<Teacher> findAllByOrderByIdAsc();
+
+  @Query("select t.updatedAt from Teacher t where t.id = :id")
+  Optional<LocalDateTime> findUpdatedAt(@Param("id") Long id);
+
+  @Query("select count(t) as count, max(t.updatedAt) as updatedAt from Teacher t")
+  Version findVersion();
 }
@@ -0,0 +1,14 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fingerprint of a whole table: its number of rows and its latest updated_at, which is kept to
+ * the millisecond. Any insert or delete changes the count and any update moves the date, so
+ * that a list can be revalidated with one aggregate read instead of being loaded.
+ */
+public interface Version {
+  Long getCount();
+
+  LocalDateTime getUpdatedAt();
+}
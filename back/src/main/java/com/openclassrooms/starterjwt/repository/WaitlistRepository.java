@@ -0,0 +1,126 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * FIFO waitlist of each session. The auto-increment id gives the order, and the
+ * (session_id, id) index makes both the head of a queue and the position of an entry range
+ * reads.
+ */
+@Repository
+public class WaitlistRepository {
+  private final JdbcTemplate jdbcTemplate;
+
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+  public WaitlistRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+  }
+
+  /**
+   * @throws org.springframework.dao.DuplicateKeyException if the user is already waiting
+   * @throws org.springframework.dao.DataIntegrityViolationException if the session or the user does not exist
+   */
+  public void insert(Long sessionId, Long userId) {
+    jdbcTemplate.update("INSERT INTO WAITLIST (session_id, user_id) VALUES (?, ?)", sessionId, userId);
+  }
+
+  public boolean delete(Long sessionId, Long userId) {
+    return jdbcTemplate.update("DELETE FROM WAITLIST WHERE session_id = ? AND user_id = ?", sessionId, userId) > 0;
+  }
+
+  /**
+   * @return the 1-based position of the user, null if the user is not waiting
+   */
+  public Integer position(Long sessionId, Long userId) {
+    Long id;
+    try {
+      id = jdbcTemplate.queryForObject(
+          "SELECT id FROM WAITLIST WHERE session_id = ? AND user_id = ?", Long.class, sessionId, userId);
+    } catch (EmptyResultDataAccessException e) {
+      return null;
+    }
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM WAITLIST WHERE session_id = ? AND id <= ?", Integer.class, sessionId, id);
+  }
+
+  /**
+   * Whether a direct booking of the session would get a seat, which is the condition of
+   * {@link ParticipationRepository#reserveSeat(Long)}, without taking it.
+   *
+   * @return null if the session does not exist
+   */
+  public Boolean isBookable(Long sessionId) {
+    List<Boolean> bookable = jdbcTemplate.queryForList(
+        "SELECT (s.capacity IS NULL OR s.participant_count < s.capacity)"
+            + " AND NOT EXISTS (SELECT 1 FROM WAITLIST w WHERE w.session_id = s.id)"
+            + " FROM SESSIONS s WHERE s.id = ?", Boolean.class, sessionId);
+    return bookable.isEmpty() ? null : bookable.get(0);
+  }
+
+  /**
+   * Locks the session row for the rest of the transaction, like a booking does, and returns
+   * how many seats are free. Unlimited sessions report {@link Integer#MAX_VALUE}, unknown ones 0.
+   */
+  public int lockFreeSeats(Long sessionId) {
+    List<Integer> freeSeats = jdbcTemplate.query(
+        "SELECT capacity, participant_count FROM SESSIONS WHERE id = ? FOR UPDATE",
+        (rs, rowNum) -> {
+          int capacity = rs.getInt("capacity");
+          return rs.wasNull() ? Integer.MAX_VALUE : Math.max(0, capacity - rs.getInt("participant_count"));
+        },
+        sessionId);
+    return freeSeats.isEmpty() ? 0 : freeSeats.get(0);
+  }
+
+  /**
+   * Drops the entries of users who got a seat by other means since they joined the queue.
+   */
+  public void deleteParticipants(Long sessionId) {
+    jdbcTemplate.update(
+        "DELETE w FROM WAITLIST w JOIN PARTICIPATE p ON p.session_id = w.session_id AND p.user_id = w.user_id"
+            + " WHERE w.session_id = ?", sessionId);
+  }
+
+  /**
+   * @return the ids of the first waiting users, in queue order
+   */
+  public List<Long> findHead(Long sessionId, int limit) {
+    return jdbcTemplate.queryForList(
+        "SELECT user_id FROM WAITLIST WHERE session_id = ? ORDER BY id LIMIT ?", Long.class, sessionId, limit);
+  }
+
+  public void deleteAll(Long sessionId, List<Long> userIds) {
+    namedJdbcTemplate.update("DELETE FROM WAITLIST WHERE session_id = :sessionId AND user_id IN (:userIds)",
+        new MapSqlParameterSource("sessionId", sessionId).addValue("userIds", userIds));
+  }
+
+  /**
+   * Removes the given users from the waitlists of the given sessions, in one batch.
+   */
+  public void deleteAll(Map<Long, List<Long>> userIdsBySession) {
+    List<Object[]> entries = new ArrayList<>();
+    userIdsBySession.forEach((sessionId, userIds) ->
+        userIds.forEach(userId -> entries.add(new Object[] {sessionId, userId})));
+    jdbcTemplate.batchUpdate("DELETE FROM WAITLIST WHERE session_id = ? AND user_id = ?", entries);
+  }
+
+  /**
+   * Sessions with both waiting users and free seats, which a missed or lost promotion leaves
+   * behind.
+   */
+  public List<Long> findPromotableSessions() {
+    return jdbcTemplate.queryForList(
+        "SELECT DISTINCT w.session_id FROM WAITLIST w JOIN SESSIONS s ON s.id = w.session_id"
+            + " WHERE s.capacity IS NULL OR s.participant_count < s.capacity", Long.class);
+  }
+}
@@ -1,7 +1,8 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.Locale;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -10,34 +11,72 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Answers unauthenticated requests with a 401. This is the hot path for scanner traffic, so
+ * the body is streamed by a shared generator factory, rejections are counted by reason rather
+ * than logged one by one, and the log statements that remain are throttled.
+ */
 @Component
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
   private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class);
 
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final Map<AuthRejectionReason, Counter> rejections = new EnumMap<>(AuthRejectionReason.class);
+
+  private final LogThrottle logThrottle;
+
+  public AuthEntryPointJwt(MeterRegistry meterRegistry,
+                           @Value("${oc.app.authRejectionLogsPerMinute:10}") int logsPerMinute) {
+    for (AuthRejectionReason reason : AuthRejectionReason.values()) {
+      rejections.put(reason, Counter.builder("auth.rejected")
+          .description("Requests rejected as unauthenticated")
+          .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry));
+    }
+    this.logThrottle = new LogThrottle(logsPerMinute);
+  }
+
   @Override
   public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
       throws IOException, ServletException {
-    logger.error("Unauthorized error: {}", authException.getMessage());
+    Object attribute = request.getAttribute(AuthRejectionReason.ATTRIBUTE);
+    AuthRejectionReason reason = attribute instanceof AuthRejectionReason
+        ? (AuthRejectionReason) attribute
+        : AuthRejectionReason.MISSING;
+    rejections.get(reason).increment();
+
+    int suppressed = logThrottle.tryAcquire();
+    if (suppressed >= 0) {
+      logger.warn("Unauthorized error ({}) on {}: {} [{} similar messages suppressed]",
+          reason, request.getServletPath(), authException.getMessage(), suppressed);
+    }
 
     response.setContentType(MediaType.APPLICATION_JSON_VALUE);
     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
 
-    final Map<String, Object> body = new HashMap<>();
-    body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
-    body.put("error", "Unauthorized");
-    body.put("message", authException.getMessage());
-    body.put("path", request.getServletPath());
-
-    final ObjectMapper mapper = new ObjectMapper();
-    mapper.writeValue(response.getOutputStream(), body);
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      generator.writeNumberField("status", HttpServletResponse.SC_UNAUTHORIZED);
+      generator.writeStringField("error", "Unauthorized");
+      generator.writeStringField("message", authException.getMessage());
+      generator.writeStringField("path", request.getServletPath());
+      generator.writeEndObject();
+    }
   }
 
 }
@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+/**
+ * Why a request reached {@link AuthEntryPointJwt} unauthenticated. {@link AuthTokenFilter}
+ * records it as a request attribute; requests without a bearer token carry none.
+ */
+public enum AuthRejectionReason {
+  MISSING,
+  MALFORMED,
+  EXPIRED,
+  BAD_SIGNATURE,
+  UNSUPPORTED,
+  REVOKED,
+  UNKNOWN_USER;
+
+  public static final String ATTRIBUTE = AuthRejectionReason.class.getName();
+
+  static AuthRejectionReason of(JwtFailureReason failureReason) {
+    switch (failureReason) {
+      case EXPIRED:
+        return EXPIRED;
+      case BAD_SIGNATURE:
+        return BAD_SIGNATURE;
+      case UNSUPPORTED:
+        return UNSUPPORTED;
+      default:
+        return MALFORMED;
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -10,13 +12,21 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.DeletedUserRegistry;
+import com.openclassrooms.starterjwt.security.services.TokenRevocationService;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -26,6 +36,38 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private VerifiedTokenCache verifiedTokenCache;
+
+  @Autowired
+  private DeletedUserRegistry deletedUserRegistry;
+
+  @Autowired
+  private TokenRevocationService tokenRevocationService;
+
+  /**
+   * When positive, principals rebuilt from token claims are checked against the database at most
+   * once per this many seconds, so that deleted accounts lose access without waiting for expiry.
+   * The check reads the USERS table itself, never the user details cache, whose TTL may be
+   * longer than this interval.
+   */
+  @Value("${oc.app.jwtRevalidateSeconds:0}")
+  private long jwtRevalidateSeconds;
+
+  /**
+   * Accounts checked within the revalidation interval; entries expire with it, so that the
+   * accounts of users who stopped calling the API are not kept.
+   */
+  private volatile Cache<Long, Boolean> revalidated;
+
+  @Value("${oc.app.authRejectionLogsPerMinute:10}")
+  private int rejectionLogsPerMinute;
+
+  private volatile LogThrottle logThrottle;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
@@ -33,10 +75,8 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      UserDetails userDetails = jwt != null ? authenticate(jwt, request) : null;
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -46,13 +86,118 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
       }
+    } catch (UsernameNotFoundException e) {
+      // A valid token of a deleted account: expected, and not worth a stack trace.
+      request.setAttribute(AuthRejectionReason.ATTRIBUTE, AuthRejectionReason.UNKNOWN_USER);
+      int suppressed = logThrottle().tryAcquire();
+      if (suppressed >= 0) {
+        logger.warn("Cannot set user authentication: {} [{} similar messages suppressed]", e.getMessage(), suppressed);
+      }
     } catch (Exception e) {
-      logger.error("Cannot set user authentication: {}", e);
+      int suppressed = logThrottle().tryAcquire();
+      if (suppressed >= 0) {
+        logger.error("Cannot set user authentication [{} similar messages suppressed]", suppressed, e);
+      }
     }
 
     filterChain.doFilter(request, response);
   }
 
+  private UserDetails authenticate(String jwt, HttpServletRequest request) {
+    // Checked before the cache, which may still hold the principal of a revoked token.
+    if (tokenRevocationService.isRevoked(jwt)) {
+      request.setAttribute(AuthRejectionReason.ATTRIBUTE, AuthRejectionReason.REVOKED);
+      return null;
+    }
+
+    String digest = verifiedTokenCache.isEnabled() ? verifiedTokenCache.digest(jwt) : null;
+    if (digest != null) {
+      UserDetails cached = verifiedTokenCache.get(digest);
+      if (cached != null) {
+        return ensureNotDeleted(cached);
+      }
+    }
+
+    JwtVerification verification = jwtUtils.verify(jwt);
+    if (!verification.isValid()) {
+      request.setAttribute(AuthRejectionReason.ATTRIBUTE, AuthRejectionReason.of(verification.getFailureReason()));
+      return null;
+    }
+
+    JwtClaims claims = verification.getClaims();
+    UserDetails userDetails = ensureNotDeleted(resolveUserDetails(claims));
+    if (digest != null) {
+      verifiedTokenCache.put(digest, userDetails, cacheExpiry(claims));
+    }
+
+    return userDetails;
+  }
+
+  private UserDetails ensureNotDeleted(UserDetails userDetails) {
+    if (userDetails instanceof UserDetailsImpl && deletedUserRegistry.isDeleted(((UserDetailsImpl) userDetails).getId())) {
+      throw new UsernameNotFoundException("User has been deleted: " + userDetails.getUsername());
+    }
+    return userDetails;
+  }
+
+  /**
+   * Cached principals are bypassed by the revalidation mode, so they must not be served for
+   * longer than the revalidation interval either.
+   */
+  private long cacheExpiry(JwtClaims claims) {
+    if (jwtRevalidateSeconds > 0) {
+      return Math.min(claims.getExpirationMs(),
+          System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(jwtRevalidateSeconds));
+    }
+    return claims.getExpirationMs();
+  }
+
+  private UserDetails resolveUserDetails(JwtClaims claims) {
+    UserDetailsImpl userDetails = claims.toUserDetails();
+    if (userDetails == null) {
+      // Tokens issued before claims were embedded only carry the email.
+      return userDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
+    if (jwtRevalidateSeconds > 0) {
+      revalidate(userDetails);
+    }
+
+    return userDetails;
+  }
+
+  private void revalidate(UserDetailsImpl userDetails) {
+    Cache<Long, Boolean> cache = revalidated();
+    if (cache.getIfPresent(userDetails.getId()) != null) {
+      return;
+    }
+
+    if (!userRepository.existsById(userDetails.getId())) {
+      throw new UsernameNotFoundException("User has been deleted: " + userDetails.getUsername());
+    }
+    cache.put(userDetails.getId(), Boolean.TRUE);
+  }
+
+  private Cache<Long, Boolean> revalidated() {
+    Cache<Long, Boolean> cache = revalidated;
+    if (cache == null) {
+      cache = Caffeine.newBuilder()
+          .expireAfterWrite(Duration.ofSeconds(jwtRevalidateSeconds))
+          .build();
+      revalidated = cache;
+    }
+    return cache;
+  }
+
+  private LogThrottle logThrottle() {
+    LogThrottle throttle = logThrottle;
+    if (throttle == null) {
+      throttle = new LogThrottle(rejectionLogsPerMinute);
+      logThrottle = throttle;
+    }
+    return throttle;
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
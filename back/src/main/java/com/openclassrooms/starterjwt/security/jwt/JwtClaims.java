@@ -0,0 +1,71 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+/**
+ * Immutable view of the claims of a verified token, extracted once so callers never go back to
+ * the raw JWT.
+ */
+@Getter
+public final class JwtClaims {
+  private final String subject;
+
+  private final Long id;
+
+  private final String firstName;
+
+  private final String lastName;
+
+  private final boolean admin;
+
+  private final long expirationMs;
+
+  JwtClaims(String subject, Long id, String firstName, String lastName, boolean admin, long expirationMs) {
+    this.subject = subject;
+    this.id = id;
+    this.firstName = firstName;
+    this.lastName = lastName;
+    this.admin = admin;
+    this.expirationMs = expirationMs;
+  }
+
+  static JwtClaims from(Claims claims) {
+    Object id = claims.get(JwtUtils.CLAIM_ID);
+
+    return new JwtClaims(
+        claims.getSubject(),
+        id instanceof Number ? ((Number) id).longValue() : null,
+        claims.get(JwtUtils.CLAIM_FIRST_NAME, String.class),
+        claims.get(JwtUtils.CLAIM_LAST_NAME, String.class),
+        Boolean.TRUE.equals(claims.get(JwtUtils.CLAIM_ADMIN, Boolean.class)),
+        claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE);
+  }
+
+  /**
+   * Tokens issued before the principal was embedded only carry the email as subject.
+   */
+  public boolean hasPrincipal() {
+    return id != null;
+  }
+
+  /**
+   * Returns the principal carried by the token, or null when {@link #hasPrincipal()} is false.
+   */
+  public UserDetailsImpl toUserDetails() {
+    if (!hasPrincipal()) {
+      return null;
+    }
+
+    return UserDetailsImpl
+            .builder()
+            .id(id)
+            .username(subject)
+            .firstName(firstName)
+            .lastName(lastName)
+            .admin(admin)
+            .build();
+  }
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+/**
+ * Why a bearer token was rejected by {@link JwtUtils#verify(String)}.
+ */
+public enum JwtFailureReason {
+  EMPTY,
+  MALFORMED,
+  EXPIRED,
+  BAD_SIGNATURE,
+  UNSUPPORTED
+}
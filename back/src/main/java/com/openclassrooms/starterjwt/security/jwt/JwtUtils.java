@@ -1,59 +1,106 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.security.Key;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 
 @Component
 public class JwtUtils {
-  private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+  static final String CLAIM_ID = "id";
+  static final String CLAIM_FIRST_NAME = "firstName";
+  static final String CLAIM_LAST_NAME = "lastName";
+  static final String CLAIM_ADMIN = "admin";
 
   @Value("${oc.app.jwtSecret}")
   private String jwtSecret;
 
-  @Value("${oc.app.jwtExpirationMs}")
-  private int jwtExpirationMs;
+  /**
+   * Access tokens are short-lived; clients renew them with their refresh token.
+   */
+  @Value("${oc.app.jwtAccessExpirationMinutes:15}")
+  private long jwtAccessExpirationMinutes;
 
-  public String generateJwtToken(Authentication authentication) {
+  private volatile Key signingKey;
+
+  private volatile JwtParser verifier;
 
-    UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+  public String generateJwtToken(Authentication authentication) {
+    return generateJwtToken((UserDetailsImpl) authentication.getPrincipal());
+  }
 
+  public String generateJwtToken(UserDetailsImpl userPrincipal) {
+    long now = System.currentTimeMillis();
     return Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
-        .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .claim(CLAIM_ID, userPrincipal.getId())
+        .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+        .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+        .claim(CLAIM_ADMIN, Boolean.TRUE.equals(userPrincipal.getAdmin()))
+        .setIssuedAt(new Date(now))
+        .setExpiration(new Date(now + TimeUnit.MINUTES.toMillis(jwtAccessExpirationMinutes)))
+        .signWith(SignatureAlgorithm.HS512, signingKey())
         .compact();
   }
 
-  public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
-  }
+  /**
+   * Checks the signature and expiry of the token and extracts its claims in a single parse.
+   * Never throws: rejected tokens come back with the reason they were rejected.
+   */
+  public JwtVerification verify(String token) {
+    if (!StringUtils.hasLength(token)) {
+      return JwtVerification.failed(JwtFailureReason.EMPTY);
+    }
 
-  public boolean validateJwtToken(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return JwtVerification.valid(JwtClaims.from(verifier().parseClaimsJws(token).getBody()));
     } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
-    } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
+      return JwtVerification.failed(JwtFailureReason.BAD_SIGNATURE);
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
+      return JwtVerification.failed(JwtFailureReason.EXPIRED);
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
+      return JwtVerification.failed(JwtFailureReason.UNSUPPORTED);
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
+      return JwtVerification.failed(JwtFailureReason.EMPTY);
+    } catch (JwtException e) {
+      return JwtVerification.failed(JwtFailureReason.MALFORMED);
+    }
+  }
+
+  /**
+   * The HMAC key is derived from {@code oc.app.jwtSecret} once, the same way jjwt derives it
+   * from a secret string.
+   */
+  private Key signingKey() {
+    Key key = signingKey;
+    if (key == null) {
+      key = new SecretKeySpec(TextCodec.BASE64.decode(jwtSecret), SignatureAlgorithm.HS512.getJcaName());
+      signingKey = key;
     }
+    return key;
+  }
 
-    return false;
+  /**
+   * A configured parser keeps no per-parse state, so one pre-keyed instance is shared by all
+   * request threads.
+   */
+  private JwtParser verifier() {
+    JwtParser parser = verifier;
+    if (parser == null) {
+      parser = Jwts.parser().setSigningKey(signingKey());
+      verifier = parser;
+    }
+    return parser;
   }
 }
@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+/**
+ * Outcome of a single verify-and-extract pass over a bearer token: either the claims or the
+ * reason the token was rejected.
+ */
+public final class JwtVerification {
+  private static final JwtVerification[] FAILURES = new JwtVerification[JwtFailureReason.values().length];
+
+  static {
+    for (JwtFailureReason reason : JwtFailureReason.values()) {
+      FAILURES[reason.ordinal()] = new JwtVerification(null, reason);
+    }
+  }
+
+  private final JwtClaims claims;
+
+  private final JwtFailureReason failureReason;
+
+  private JwtVerification(JwtClaims claims, JwtFailureReason failureReason) {
+    this.claims = claims;
+    this.failureReason = failureReason;
+  }
+
+  static JwtVerification valid(JwtClaims claims) {
+    return new JwtVerification(claims, null);
+  }
+
+  static JwtVerification failed(JwtFailureReason failureReason) {
+    return FAILURES[failureReason.ordinal()];
+  }
+
+  public boolean isValid() {
+    return claims != null;
+  }
+
+  public JwtClaims getClaims() {
+    return claims;
+  }
+
+  public JwtFailureReason getFailureReason() {
+    return failureReason;
+  }
+}
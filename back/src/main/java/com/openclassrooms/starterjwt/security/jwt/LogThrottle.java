@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets at most {@code permitsPerMinute} log statements through per minute, so that junk
+ * traffic cannot flood the logs. The number of statements dropped since the last one that got
+ * through is handed to the next one, to be reported alongside it.
+ */
+class LogThrottle {
+  private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final int permitsPerMinute;
+
+  private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+  private final AtomicInteger permitsUsed = new AtomicInteger();
+
+  private final AtomicInteger suppressed = new AtomicInteger();
+
+  LogThrottle(int permitsPerMinute) {
+    this.permitsPerMinute = permitsPerMinute;
+  }
+
+  /**
+   * @return -1 when the statement must be dropped, otherwise the number of statements dropped
+   *         since the previous one
+   */
+  int tryAcquire() {
+    long now = System.nanoTime();
+    long start = windowStart.get();
+    if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+      permitsUsed.set(0);
+    }
+
+    if (permitsUsed.incrementAndGet() > permitsPerMinute) {
+      suppressed.incrementAndGet();
+      return -1;
+    }
+    return suppressed.getAndSet(0);
+  }
+}
@@ -0,0 +1,114 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.openclassrooms.starterjwt.services.UserDeletedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Remembers the principal resolved for a bearer token, keyed by a SHA-256 digest of the token,
+ * so that repeat requests skip both the signature check and the user lookup. An entry never
+ * outlives the {@code exp} claim of its token.
+ */
+@Component
+public class VerifiedTokenCache {
+  private final boolean enabled;
+
+  private final Cache<String, Entry> cache;
+
+  public VerifiedTokenCache(@Value("${oc.app.jwtCacheEnabled:true}") boolean enabled,
+                            @Value("${oc.app.jwtCacheMaxSize:10000}") long maxSize,
+                            MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new UntilTokenExpiry())
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtTokens");
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  public UserDetails get(String digest) {
+    if (!enabled) {
+      return null;
+    }
+
+    Entry entry = cache.getIfPresent(digest);
+    return entry != null ? entry.principal : null;
+  }
+
+  /**
+   * @param expiresAtMs epoch millis after which the entry must no longer be served
+   */
+  public void put(String digest, UserDetails principal, long expiresAtMs) {
+    if (enabled && expiresAtMs > System.currentTimeMillis()) {
+      cache.put(digest, new Entry(principal, expiresAtMs));
+    }
+  }
+
+  @EventListener
+  public void onUserDeleted(UserDeletedEvent event) {
+    cache.asMap().values().removeIf(entry -> event.getEmail().equals(entry.principal.getUsername()));
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private static final class Entry {
+    private final UserDetails principal;
+
+    private final long expiresAtMs;
+
+    private Entry(UserDetails principal, long expiresAtMs) {
+      this.principal = principal;
+      this.expiresAtMs = expiresAtMs;
+    }
+  }
+
+  private static final class UntilTokenExpiry implements Expiry<String, Entry> {
+    @Override
+    public long expireAfterCreate(String key, Entry value, long currentTime) {
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAtMs - System.currentTimeMillis()));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
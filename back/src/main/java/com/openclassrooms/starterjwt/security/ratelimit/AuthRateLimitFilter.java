@@ -0,0 +1,166 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Throttles the endpoints that run the password encoder, before any hashing happens. Every
+ * request spends a token from the bucket of its client address, and login and registration
+ * also spend one from the bucket of the email they target, so that neither a single client
+ * nor a distributed attack on a single account can burn the hashing pool.
+ *
+ * <p>The client address is the one resolved by {@code server.forward-headers-strategy}, so that
+ * clients behind the reverse proxy do not share its bucket. Bodies longer than a login are
+ * refused with 413 rather than passed on without being charged to their email.
+ */
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+  private static final String LOGIN_PATH = "/api/auth/login";
+
+  private static final String REGISTER_PATH = "/api/auth/register";
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${oc.app.authRateLimitEnabled:true}")
+  private boolean enabled;
+
+  @Value("${oc.app.authRateLimitStripes:64}")
+  private int stripes;
+
+  @Value("${oc.app.authRateLimitIpCapacity:20}")
+  private long ipCapacity;
+
+  @Value("${oc.app.authRateLimitIpRefillPerMinute:20}")
+  private long ipRefillPerMinute;
+
+  @Value("${oc.app.authRateLimitEmailCapacity:5}")
+  private long emailCapacity;
+
+  @Value("${oc.app.authRateLimitEmailRefillPerMinute:5}")
+  private long emailRefillPerMinute;
+
+  @Value("${oc.app.authRateLimitIdleSeconds:600}")
+  private long idleSeconds;
+
+  @Value("${oc.app.authRateLimitMaxKeys:100000}")
+  private long maxKeys;
+
+  /**
+   * Longest body accepted on these endpoints, which is buffered to read the email.
+   */
+  @Value("${oc.app.authRateLimitMaxBodyBytes:4096}")
+  private int maxBodyBytes;
+
+  private StripedTokenBuckets ipBuckets;
+
+  private StripedTokenBuckets emailBuckets;
+
+  private Counter ipRejections;
+
+  private Counter emailRejections;
+
+  @Override
+  protected void initFilterBean() {
+    ipBuckets = new StripedTokenBuckets(stripes, ipCapacity, ipRefillPerMinute, idleSeconds, maxKeys);
+    emailBuckets = new StripedTokenBuckets(stripes, emailCapacity, emailRefillPerMinute, idleSeconds, maxKeys);
+    ipRejections = rejectionCounter("ip");
+    emailRejections = rejectionCounter("email");
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    if (!enabled || !"POST".equals(request.getMethod())) {
+      return true;
+    }
+
+    String path = request.getServletPath();
+    return !LOGIN_PATH.equals(path) && !REGISTER_PATH.equals(path);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    long now = System.nanoTime();
+
+    long waitNanos = ipBuckets.tryAcquire(request.getRemoteAddr(), now);
+    if (waitNanos > 0) {
+      ipRejections.increment();
+      reject(response, waitNanos);
+      return;
+    }
+
+    CachedBodyHttpServletRequest cached = request.getContentLengthLong() > maxBodyBytes
+        ? null
+        : CachedBodyHttpServletRequest.readAtMost(request, maxBodyBytes);
+    if (cached == null) {
+      response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      objectMapper.writeValue(response.getOutputStream(), new MessageResponse("Error: Request body is too large"));
+      return;
+    }
+
+    String email = readEmail(cached.getBody());
+    if (email != null) {
+      waitNanos = emailBuckets.tryAcquire(email, now);
+      if (waitNanos > 0) {
+        emailRejections.increment();
+        reject(response, waitNanos);
+        return;
+      }
+    }
+
+    filterChain.doFilter(cached, response);
+  }
+
+  private String readEmail(byte[] body) {
+    if (body.length == 0) {
+      return null;
+    }
+    try {
+      JsonNode email = objectMapper.readTree(body).get("email");
+      return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+    } catch (IOException e) {
+      // Malformed bodies are rejected by the controller, after the client bucket was charged.
+      return null;
+    }
+  }
+
+  private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER,
+        String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(),
+        new MessageResponse("Error: Too many authentication attempts, retry later"));
+  }
+
+  private Counter rejectionCounter(String key) {
+    return Counter.builder("auth.ratelimit.rejected")
+        .description("Authentication requests rejected by the rate limiter")
+        .tag("key", key)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,103 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Reads the request body once so that it can be inspected by a filter and still be read by
+ * the controller.
+ */
+class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+  private final byte[] body;
+
+  private CachedBodyHttpServletRequest(HttpServletRequest request, byte[] body) {
+    super(request);
+    this.body = body;
+  }
+
+  /**
+   * Reads the body whatever the Content-Length header says, chunked bodies included, but never
+   * more than one byte past {@code maxBytes}.
+   *
+   * @return null if the body is longer than {@code maxBytes}
+   */
+  static CachedBodyHttpServletRequest readAtMost(HttpServletRequest request, int maxBytes) throws IOException {
+    InputStream input = request.getInputStream();
+    ByteArrayOutputStream body = new ByteArrayOutputStream(Math.min(Math.max(request.getContentLength(), 0), maxBytes));
+    byte[] buffer = new byte[1024];
+    int read;
+    while ((read = input.read(buffer, 0, Math.min(buffer.length, maxBytes + 1 - body.size()))) > 0) {
+      body.write(buffer, 0, read);
+      if (body.size() > maxBytes) {
+        return null;
+      }
+    }
+    return new CachedBodyHttpServletRequest(request, body.toByteArray());
+  }
+
+  byte[] getBody() {
+    return body;
+  }
+
+  @Override
+  public ServletInputStream getInputStream() {
+    ByteArrayInputStream input = new ByteArrayInputStream(body);
+    return new ServletInputStream() {
+      @Override
+      public int read() {
+        return input.read();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+        return input.read(b, off, len);
+      }
+
+      @Override
+      public boolean isFinished() {
+        return input.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      /**
+       * The whole body is already in memory, so the listener is called back at once: with the
+       * data, then with the end of the stream if it read it all.
+       */
+      @Override
+      public void setReadListener(ReadListener readListener) {
+        try {
+          if (!isFinished()) {
+            readListener.onDataAvailable();
+          }
+          if (isFinished()) {
+            readListener.onAllDataRead();
+          }
+        } catch (IOException e) {
+          readListener.onError(e);
+        }
+      }
+    };
+  }
+
+  @Override
+  public BufferedReader getReader() {
+    String encoding = getCharacterEncoding();
+    Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+    return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+  }
+}
@@ -0,0 +1,122 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets keyed by an arbitrary string, spread over a fixed number of stripes so that
+ * concurrent requests for different keys rarely contend on the same lock. Each stripe keeps its
+ * buckets in access order: idle buckets are swept from the least recently used end, and a
+ * stripe never holds more than its share of {@code maxKeys}.
+ */
+class StripedTokenBuckets {
+  private final Stripe[] stripes;
+
+  private final long capacity;
+
+  private final long nanosPerToken;
+
+  private final long idleNanos;
+
+  StripedTokenBuckets(int stripeCount, long capacity, long refillPerMinute, long idleSeconds, long maxKeys) {
+    int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+    int maxKeysPerStripe = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxKeys / size));
+
+    this.stripes = new Stripe[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new Stripe(maxKeysPerStripe);
+    }
+    this.capacity = Math.max(1, capacity);
+    this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / Math.max(1, refillPerMinute);
+    this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+  }
+
+  /**
+   * Takes one token from the bucket of the key.
+   *
+   * @return 0 when a token was taken, otherwise the nanoseconds until the next token is available
+   */
+  long tryAcquire(String key, long nowNanos) {
+    Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+    synchronized (stripe) {
+      stripe.sweepIdle(nowNanos, idleNanos);
+
+      Bucket bucket = stripe.buckets.get(key);
+      if (bucket == null) {
+        bucket = new Bucket(capacity, nowNanos);
+        stripe.buckets.put(key, bucket);
+      }
+      return bucket.tryAcquire(nowNanos, capacity, nanosPerToken);
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.buckets.size();
+      }
+    }
+    return size;
+  }
+
+  private static int spread(int h) {
+    return h ^ (h >>> 16);
+  }
+
+  private static final class Stripe {
+    private final Map<String, Bucket> buckets;
+
+    private Stripe(int maxKeys) {
+      this.buckets = new LinkedHashMap<String, Bucket>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+          return size() > maxKeys;
+        }
+      };
+    }
+
+    /**
+     * A bucket untouched for the idle period has refilled completely, so dropping it is
+     * indistinguishable from keeping it.
+     */
+    private void sweepIdle(long nowNanos, long idleNanos) {
+      Iterator<Bucket> iterator = buckets.values().iterator();
+      while (iterator.hasNext() && nowNanos - iterator.next().lastAccessNanos > idleNanos) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private static final class Bucket {
+    private long tokens;
+
+    private long refilledAtNanos;
+
+    private long lastAccessNanos;
+
+    private Bucket(long tokens, long nowNanos) {
+      this.tokens = tokens;
+      this.refilledAtNanos = nowNanos;
+      this.lastAccessNanos = nowNanos;
+    }
+
+    private long tryAcquire(long nowNanos, long capacity, long nanosPerToken) {
+      lastAccessNanos = nowNanos;
+
+      long refill = (nowNanos - refilledAtNanos) / nanosPerToken;
+      if (refill > 0) {
+        tokens = Math.min(capacity, tokens + refill);
+        refilledAtNanos = tokens == capacity ? nowNanos : refilledAtNanos + refill * nanosPerToken;
+      }
+
+      if (tokens > 0) {
+        tokens--;
+        return 0;
+      }
+      return Math.max(1, refilledAtNanos + nanosPerToken - nowNanos);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over SHA-256 hex digests. The digest is already uniformly
+ * distributed, so its first two 64-bit words are used directly for double hashing instead of
+ * hashing it again. Adds and lookups are lock-free.
+ */
+final class BloomFilter {
+  private final AtomicLongArray bits;
+
+  private final long bitCount;
+
+  private final int hashCount;
+
+  BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (m + 63) / 64));
+
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = (long) words * 64;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  void put(String hexDigest) {
+    long h1 = word(hexDigest, 0);
+    long h2 = word(hexDigest, 16);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      int index = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(index);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!bits.compareAndSet(index, current, current | mask));
+    }
+  }
+
+  boolean mightContain(String hexDigest) {
+    long h1 = word(hexDigest, 0);
+    long h2 = word(hexDigest, 16);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long word(String hexDigest, int offset) {
+    return Long.parseUnsignedLong(hexDigest.substring(offset, offset + 16), 16);
+  }
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.models.DeletedUser;
+import com.openclassrooms.starterjwt.repository.DeletedUserRepository;
+import com.openclassrooms.starterjwt.services.UserDeletedEvent;
+
+/**
+ * Principals are rebuilt from token claims without reading the USERS table, so tokens of a
+ * deleted account would stay usable until they expire. Deleted accounts are remembered here
+ * for the lifetime of an access token and rejected by the authentication filter.
+ *
+ * <p>Accounts are keyed on their id, so that an email registered again is not affected. Every
+ * deletion is also written to the DELETED_USERS table in the transaction of the deletion, and
+ * each node polls the table every {@code oc.app.jwtDenylistPollIntervalMs} for the deletions
+ * made by the others.
+ */
+@Component
+public class DeletedUserRegistry {
+  private static final Logger logger = LoggerFactory.getLogger(DeletedUserRegistry.class);
+
+  private final DeletedUserRepository deletedUserRepository;
+
+  private final long jwtExpirationMs;
+
+  private final Cache<Long, Boolean> deletedUsers;
+
+  private final PollCursor cursor;
+
+  public DeletedUserRegistry(DeletedUserRepository deletedUserRepository,
+                             @Value("${oc.app.jwtAccessExpirationMinutes:15}") long jwtAccessExpirationMinutes,
+                             @Value("${oc.app.jwtDenylistPollGraceMs:60000}") long pollGraceMs) {
+    this.deletedUserRepository = deletedUserRepository;
+    this.jwtExpirationMs = TimeUnit.MINUTES.toMillis(jwtAccessExpirationMinutes);
+    this.deletedUsers = Caffeine.newBuilder()
+        .expireAfterWrite(Duration.ofMillis(this.jwtExpirationMs))
+        .build();
+    this.cursor = new PollCursor(pollGraceMs);
+  }
+
+  public boolean isDeleted(Long userId) {
+    return userId != null && deletedUsers.getIfPresent(userId) != null;
+  }
+
+  /**
+   * Joins the transaction of the deletion, so that the row exists if and only if the account
+   * was deleted.
+   */
+  @EventListener
+  public void recordDeletion(UserDeletedEvent event) {
+    deletedUserRepository.save(DeletedUser.builder()
+        .userId(event.getId())
+        .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(jwtExpirationMs)))
+        .build());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    deletedUsers.put(event.getId(), Boolean.TRUE);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    pollDeletions();
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.jwtDenylistPollIntervalMs:5000}",
+      initialDelayString = "${oc.app.jwtDenylistPollIntervalMs:5000}")
+  public void pollDeletions() {
+    try {
+      poll();
+    } catch (DataAccessException e) {
+      logger.warn("Cannot read deleted users, retrying at the next poll", e);
+    }
+  }
+
+  void poll() {
+    long now = System.currentTimeMillis();
+    List<DeletedUser> deleted = deletedUserRepository.findActiveAfter(cursor.position(now), LocalDateTime.now());
+    deleted.forEach(user -> deletedUsers.put(user.getUserId(), Boolean.TRUE));
+    if (!deleted.isEmpty()) {
+      cursor.seen(deleted.get(deleted.size() - 1).getId(), now);
+    }
+  }
+
+  @Transactional
+  @Scheduled(fixedDelayString = "${oc.app.jwtDenylistPurgeIntervalMs:600000}",
+      initialDelayString = "${oc.app.jwtDenylistPurgeIntervalMs:600000}")
+  public void purgeExpired() {
+    int purged = deletedUserRepository.deleteExpired(LocalDateTime.now());
+    if (purged > 0) {
+      logger.info("Purged {} expired deleted users", purged);
+    }
+  }
+}
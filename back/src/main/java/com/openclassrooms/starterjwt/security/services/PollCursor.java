@@ -0,0 +1,41 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Position of a node in a table polled for the rows other nodes insert, by auto-increment id.
+ * Ids are allocated at insert but rows become visible at commit, so a row may show up after
+ * rows with higher ids. The cursor therefore only moves past an id once it has been seen for
+ * {@code graceMs}; rows above it are read again until then, which the callers tolerate.
+ */
+class PollCursor {
+  private final long graceMs;
+
+  /**
+   * Highest id read by each recent poll, as {seenAtMs, id}, oldest first.
+   */
+  private final Deque<long[]> recent = new ArrayDeque<>();
+
+  private long position;
+
+  PollCursor(long graceMs) {
+    this.graceMs = graceMs;
+  }
+
+  /**
+   * @return the id after which the next poll must read
+   */
+  synchronized long position(long nowMs) {
+    while (!recent.isEmpty() && nowMs - recent.peekFirst()[0] >= graceMs) {
+      position = Math.max(position, recent.pollFirst()[1]);
+    }
+    return position;
+  }
+
+  synchronized void seen(long maxId, long nowMs) {
+    if (maxId > position) {
+      recent.addLast(new long[] {nowMs, maxId});
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.starterjwt.exception.InvalidRefreshTokenException;
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Issues and rotates refresh tokens. A refresh token can be exchanged exactly once for a new
+ * access token and a new refresh token, without running the password encoder.
+ */
+@Service
+public class RefreshTokenService {
+  private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+  private final SecureRandom secureRandom = new SecureRandom();
+
+  private final RefreshTokenRepository refreshTokenRepository;
+
+  private final UserRepository userRepository;
+
+  @Value("${oc.app.jwtRefreshExpirationMs:2592000000}")
+  private long jwtRefreshExpirationMs;
+
+  RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
+    this.refreshTokenRepository = refreshTokenRepository;
+    this.userRepository = userRepository;
+  }
+
+  /**
+   * @return the raw token to hand to the client; only its hash is persisted
+   */
+  public String create(Long userId) {
+    byte[] bytes = new byte[32];
+    secureRandom.nextBytes(bytes);
+    String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+    refreshTokenRepository.save(RefreshToken.builder()
+        .tokenHash(hash(token))
+        .userId(userId)
+        .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(jwtRefreshExpirationMs)))
+        .build());
+
+    return token;
+  }
+
+  /**
+   * Consumes the given refresh token and issues its replacement. The delete is conditional, so
+   * when two requests race with the same token only one of them wins.
+   */
+  @Transactional
+  public Rotation rotate(String token) {
+    String tokenHash = hash(token);
+    RefreshToken existing = refreshTokenRepository.findByTokenHash(tokenHash)
+        .orElseThrow(InvalidRefreshTokenException::new);
+
+    if (refreshTokenRepository.deleteByTokenHash(tokenHash) == 0
+        || existing.getExpiresAt().isBefore(LocalDateTime.now())) {
+      throw new InvalidRefreshTokenException();
+    }
+
+    User user = userRepository.findById(existing.getUserId())
+        .orElseThrow(InvalidRefreshTokenException::new);
+
+    UserDetailsImpl userDetails = UserDetailsImpl
+            .builder()
+            .id(user.getId())
+            .username(user.getEmail())
+            .lastName(user.getLastName())
+            .firstName(user.getFirstName())
+            .admin(user.isAdmin())
+            .build();
+
+    return new Rotation(userDetails, create(user.getId()));
+  }
+
+  @Transactional
+  public void revoke(String token) {
+    refreshTokenRepository.deleteByTokenHash(hash(token));
+  }
+
+  @Transactional
+  @Scheduled(fixedDelayString = "${oc.app.refreshTokenPurgeIntervalMs:3600000}",
+      initialDelayString = "${oc.app.refreshTokenPurgeIntervalMs:3600000}")
+  public void purgeExpired() {
+    int purged = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    if (purged > 0) {
+      logger.info("Purged {} expired refresh tokens", purged);
+    }
+  }
+
+  static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static class Rotation {
+    private final UserDetailsImpl userDetails;
+
+    private final String refreshToken;
+  }
+}
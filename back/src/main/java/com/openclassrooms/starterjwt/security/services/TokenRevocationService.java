@@ -0,0 +1,161 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+
+/**
+ * Denylist of access tokens revoked before their expiry. Every authenticated request is
+ * checked against an in-memory Bloom filter first; only its (rare) positives are confirmed
+ * against the REVOKED_TOKENS table. Bloom filters cannot forget, so the filter is rebuilt from
+ * the table, without the expired rows, at startup and on every purge.
+ *
+ * <p>Tokens revoked on other nodes are added to the filter by a poll of the rows inserted since
+ * the last one, every {@code oc.app.jwtDenylistPollIntervalMs}.
+ */
+@Service
+public class TokenRevocationService {
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+  private final RevokedTokenRepository revokedTokenRepository;
+
+  private final long expectedSize;
+
+  private final double falsePositiveRate;
+
+  private volatile BloomFilter filter;
+
+  /**
+   * Nothing has to be hashed while nothing was ever revoked, which is the common case.
+   */
+  private volatile boolean empty = true;
+
+  private final PollCursor cursor;
+
+  public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                @Value("${oc.app.jwtDenylistExpectedSize:100000}") long expectedSize,
+                                @Value("${oc.app.jwtDenylistFalsePositiveRate:0.01}") double falsePositiveRate,
+                                @Value("${oc.app.jwtDenylistPollGraceMs:60000}") long pollGraceMs) {
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.expectedSize = expectedSize;
+    this.falsePositiveRate = falsePositiveRate;
+    this.filter = new BloomFilter(expectedSize, falsePositiveRate);
+    this.cursor = new PollCursor(pollGraceMs);
+  }
+
+  /**
+   * Idempotent: revoking a token twice, as a retried logout does, hits the unique key on
+   * {@code token_hash} and leaves the existing row in place.
+   *
+   * @param expiresAtMs the {@code exp} claim of the token, after which the row is purged
+   */
+  public void revoke(String token, long expiresAtMs) {
+    if (expiresAtMs <= System.currentTimeMillis()) {
+      return;
+    }
+
+    String tokenHash = RefreshTokenService.hash(token);
+    try {
+      revokedTokenRepository.save(RevokedToken.builder()
+          .tokenHash(tokenHash)
+          .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMs), ZoneId.systemDefault()))
+          .build());
+    } catch (DataIntegrityViolationException e) {
+      logger.debug("Token {} was already revoked", tokenHash);
+    }
+
+    synchronized (this) {
+      filter.put(tokenHash);
+      empty = false;
+    }
+  }
+
+  public boolean isRevoked(String token) {
+    if (empty) {
+      return false;
+    }
+
+    String tokenHash = RefreshTokenService.hash(token);
+    if (!filter.mightContain(tokenHash)) {
+      return false;
+    }
+
+    return revokedTokenRepository.existsByTokenHashAndExpiresAtAfter(tokenHash, LocalDateTime.now());
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    try {
+      rebuild();
+    } catch (DataAccessException e) {
+      logger.error("Cannot load revoked tokens, retrying at the next purge", e);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.jwtDenylistPollIntervalMs:5000}",
+      initialDelayString = "${oc.app.jwtDenylistPollIntervalMs:5000}")
+  public void pollRevocations() {
+    try {
+      poll();
+    } catch (DataAccessException e) {
+      logger.warn("Cannot read revoked tokens, retrying at the next poll", e);
+    }
+  }
+
+  /**
+   * Adds the tokens revoked since the last poll, including those of this node, which are
+   * already in the filter.
+   */
+  void poll() {
+    long now = System.currentTimeMillis();
+    List<RevokedToken> revoked = revokedTokenRepository.findActiveAfter(cursor.position(now), LocalDateTime.now());
+    if (revoked.isEmpty()) {
+      return;
+    }
+
+    synchronized (this) {
+      revoked.forEach(token -> filter.put(token.getTokenHash()));
+      empty = false;
+    }
+    cursor.seen(revoked.get(revoked.size() - 1).getId(), now);
+  }
+
+  @Transactional
+  @Scheduled(fixedDelayString = "${oc.app.jwtDenylistPurgeIntervalMs:600000}",
+      initialDelayString = "${oc.app.jwtDenylistPurgeIntervalMs:600000}")
+  public void purgeExpired() {
+    int purged = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+    if (purged > 0) {
+      logger.info("Purged {} expired revoked tokens", purged);
+    }
+    rebuild();
+  }
+
+  /**
+   * Holds the same lock as {@link #revoke}, so a token revoked while the table is being read
+   * is added to the new filter rather than to the discarded one.
+   */
+  synchronized void rebuild() {
+    List<String> tokenHashes = revokedTokenRepository.findActiveTokenHashes(LocalDateTime.now());
+    BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, tokenHashes.size()), falsePositiveRate);
+    tokenHashes.forEach(rebuilt::put);
+
+    filter = rebuilt;
+    empty = tokenHashes.isEmpty();
+  }
+}
@@ -1,13 +1,18 @@
 package com.openclassrooms.starterjwt.security.services;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.openclassrooms.starterjwt.config.CacheConfig;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.UserDeletedEvent;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -19,6 +24,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
   @Override
   @Transactional
+  @Cacheable(cacheNames = CacheConfig.USER_DETAILS_CACHE, key = "#username")
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
     User user = userRepository.findByEmail(username)
         .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
@@ -29,8 +35,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             .username(user.getEmail())
             .lastName(user.getLastName())
             .firstName(user.getFirstName())
+            .admin(user.isAdmin())
             .password(user.getPassword())
             .build();
   }
 
+  @EventListener
+  @CacheEvict(cacheNames = CacheConfig.USER_DETAILS_CACHE, key = "#event.email")
+  public void onUserDeleted(UserDeletedEvent event) {
+    // Eviction is done by @CacheEvict, so a deleted account can no longer log in from cache.
+  }
+
 }
@@ -0,0 +1,98 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.payload.request.BulkParticipationRequest.Participation;
+import com.openclassrooms.starterjwt.payload.response.BulkParticipationReport;
+import com.openclassrooms.starterjwt.payload.response.BulkParticipationReport.Status;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Enrolls many (session, user) pairs at once. Whatever the number of pairs, validation reads
+ * the users, the sessions and the existing participations in three queries, and the accepted
+ * pairs are written in three batched statements.
+ */
+@Service
+public class BulkParticipationService {
+    private final UserRepository userRepository;
+
+    private final ParticipationRepository participationRepository;
+
+    private final WaitlistRepository waitlistRepository;
+
+    private final SessionCache sessionCache;
+
+    public BulkParticipationService(UserRepository userRepository,
+                                    ParticipationRepository participationRepository,
+                                    WaitlistRepository waitlistRepository,
+                                    SessionCache sessionCache) {
+        this.userRepository = userRepository;
+        this.participationRepository = participationRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.sessionCache = sessionCache;
+    }
+
+    /**
+     * Pairs are accepted in request order until their session is full. Enrollment by an admin
+     * goes ahead of the session waitlist, and removes the enrolled users from it.
+     */
+    @Transactional
+    public BulkParticipationReport enroll(List<Participation> participations) {
+        Set<Long> sessionIds = new TreeSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (Participation participation : participations) {
+            sessionIds.add(participation.getSessionId());
+            userIds.add(participation.getUserId());
+        }
+
+        Set<Long> knownUsers = new HashSet<>(this.userRepository.findExistingIds(userIds));
+        Map<Long, Integer> freeSeats = this.participationRepository.lockFreeSeats(sessionIds);
+        Map<Long, Set<Long>> participants = this.participationRepository.findParticipants(sessionIds, userIds);
+
+        BulkParticipationReport report = new BulkParticipationReport();
+        Map<Long, List<Long>> accepted = new LinkedHashMap<>();
+        Set<Participation> seen = new HashSet<>();
+        for (Participation participation : participations) {
+            Long sessionId = participation.getSessionId();
+            Long userId = participation.getUserId();
+
+            Status status;
+            if (!seen.add(participation)) {
+                status = Status.DUPLICATE;
+            } else if (!freeSeats.containsKey(sessionId)) {
+                status = Status.UNKNOWN_SESSION;
+            } else if (!knownUsers.contains(userId)) {
+                status = Status.UNKNOWN_USER;
+            } else if (participants.getOrDefault(sessionId, Collections.emptySet()).contains(userId)) {
+                status = Status.ALREADY_PARTICIPATING;
+            } else if (freeSeats.get(sessionId) == 0) {
+                status = Status.SESSION_FULL;
+            } else {
+                status = Status.ENROLLED;
+                if (freeSeats.get(sessionId) != Integer.MAX_VALUE) {
+                    freeSeats.merge(sessionId, -1, Integer::sum);
+                }
+                accepted.computeIfAbsent(sessionId, id -> new ArrayList<>()).add(userId);
+            }
+            report.add(new BulkParticipationReport.Row(sessionId, userId, status));
+        }
+
+        if (!accepted.isEmpty()) {
+            this.participationRepository.insertAll(accepted);
+            this.waitlistRepository.deleteAll(accepted);
+            this.sessionCache.evictAll(accepted.keySet());
+        }
+        return report;
+    }
+}
@@ -0,0 +1,155 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The part of the iCalendar RRULE (RFC 5545) that session series need: {@code FREQ=DAILY} or
+ * {@code FREQ=WEEKLY}, an optional {@code INTERVAL} and, for weekly rules, an optional
+ * {@code BYDAY} list, as in {@code FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH}. A weekly rule without
+ * {@code BYDAY} repeats on the day of the first occurrence. The end of a series is given
+ * separately, so {@code COUNT} and {@code UNTIL} are not accepted.
+ */
+public final class RecurrenceRule {
+    enum Frequency {
+        DAILY,
+        WEEKLY
+    }
+
+    private final Frequency frequency;
+
+    private final int interval;
+
+    private final Set<DayOfWeek> days;
+
+    private RecurrenceRule(Frequency frequency, int interval, Set<DayOfWeek> days) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.days = days;
+    }
+
+    /**
+     * @throws BadRequestException if the rule is malformed or uses an unsupported part
+     */
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null) {
+            throw new BadRequestException();
+        }
+
+        String value = rule.trim().toUpperCase(Locale.ROOT);
+        if (value.startsWith("RRULE:")) {
+            value = value.substring("RRULE:".length());
+        }
+
+        Frequency frequency = null;
+        Integer interval = null;
+        Set<DayOfWeek> days = null;
+        try {
+            for (String part : value.split(";", -1)) {
+                String[] pair = part.split("=", -1);
+                if (pair.length != 2) {
+                    throw new BadRequestException();
+                }
+
+                if (pair[0].equals("FREQ") && frequency == null) {
+                    frequency = Frequency.valueOf(pair[1]);
+                } else if (pair[0].equals("INTERVAL") && interval == null) {
+                    interval = Integer.parseInt(pair[1]);
+                } else if (pair[0].equals("BYDAY") && days == null) {
+                    days = EnumSet.noneOf(DayOfWeek.class);
+                    for (String day : pair[1].split(",", -1)) {
+                        days.add(dayOfWeek(day));
+                    }
+                } else {
+                    throw new BadRequestException();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+
+        if (frequency == null || (interval != null && interval < 1) || (days != null && frequency != Frequency.WEEKLY)) {
+            throw new BadRequestException();
+        }
+        return new RecurrenceRule(frequency, interval != null ? interval : 1,
+                days != null ? days : Collections.emptySet());
+    }
+
+    private static DayOfWeek dayOfWeek(String day) {
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek.name().substring(0, 2).equals(day)) {
+                return dayOfWeek;
+            }
+        }
+        throw new BadRequestException();
+    }
+
+    /**
+     * Occurrences of a series which starts at {@code start}, falling between {@code from}
+     * included and {@code until} excluded, in order. Every occurrence keeps the time of day of
+     * {@code start}. Periods before {@code from} are skipped without being walked through.
+     */
+    public List<LocalDateTime> occurrences(LocalDateTime start, LocalDateTime from, LocalDateTime until) {
+        LocalDate firstPeriod;
+        long periodDays;
+        List<Integer> offsets;
+        if (this.frequency == Frequency.DAILY) {
+            firstPeriod = start.toLocalDate();
+            periodDays = this.interval;
+            offsets = Collections.singletonList(0);
+        } else {
+            firstPeriod = start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            periodDays = 7L * this.interval;
+            Set<DayOfWeek> weekDays = this.days.isEmpty() ? EnumSet.of(start.getDayOfWeek()) : this.days;
+            offsets = weekDays.stream().map(day -> day.getValue() - 1).collect(Collectors.toList());
+        }
+
+        long period = from.isAfter(start) ? ChronoUnit.DAYS.between(firstPeriod, from.toLocalDate()) / periodDays : 0;
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        for (; ; period++) {
+            LocalDate periodStart = firstPeriod.plusDays(period * periodDays);
+            if (!periodStart.atStartOfDay().isBefore(until)) {
+                return occurrences;
+            }
+
+            for (int offset : offsets) {
+                LocalDateTime occurrence = periodStart.plusDays(offset).atTime(start.toLocalTime());
+                if (!occurrence.isBefore(until)) {
+                    return occurrences;
+                }
+                if (!occurrence.isBefore(start) && !occurrence.isBefore(from)) {
+                    occurrences.add(occurrence);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the rule in its canonical form, which {@link #parse(String)} reads back
+     */
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(this.frequency);
+        if (this.interval != 1) {
+            rule.append(";INTERVAL=").append(this.interval);
+        }
+        if (!this.days.isEmpty()) {
+            rule.append(";BYDAY=").append(this.days.stream()
+                    .map(day -> day.name().substring(0, 2))
+                    .collect(Collectors.joining(",")));
+        }
+        return rule.toString();
+    }
+}
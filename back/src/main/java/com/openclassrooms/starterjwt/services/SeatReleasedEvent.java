@@ -0,0 +1,14 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a participant leaves a session, so that the waitlist of the session can be
+ * promoted once the transaction has committed.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatReleasedEvent {
+    private final Long sessionId;
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.config.CacheConfig;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Evictions from the session cache for the services which change sessions, or their
+ * participant counts, outside of {@link SessionService}. Within a transaction, they are applied
+ * once it commits.
+ */
+@Component
+public class SessionCache {
+    private final Cache cache;
+
+    public SessionCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(CacheConfig.SESSIONS_CACHE);
+    }
+
+    public void evict(Long sessionId) {
+        this.cache.evict(sessionId);
+    }
+
+    public void evictAll(Collection<Long> sessionIds) {
+        sessionIds.forEach(this.cache::evict);
+    }
+}
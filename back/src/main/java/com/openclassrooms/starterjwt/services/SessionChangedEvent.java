@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a session is created, updated or deleted, so that data derived from sessions
+ * can follow once the transaction has committed. Name and description are null for a deletion.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class SessionChangedEvent {
+    private final Long id;
+
+    private final String name;
+
+    private final String description;
+
+    private final boolean deleted;
+
+    public static SessionChangedEvent saved(Session session) {
+        return saved(session.getId(), session.getName(), session.getDescription());
+    }
+
+    public static SessionChangedEvent saved(Long id, String name, String description) {
+        return new SessionChangedEvent(id, name, description, false);
+    }
+
+    public static SessionChangedEvent deleted(Long id) {
+        return new SessionChangedEvent(id, null, null, true);
+    }
+}
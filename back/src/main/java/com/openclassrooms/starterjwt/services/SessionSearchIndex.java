@@ -0,0 +1,288 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index over the name and description of every session.
+ *
+ * <p>Terms are lowercased and accent folded ("Méditation" is indexed as "meditation") and kept
+ * sorted, so that a query term matches every indexed term it is a prefix of through a range
+ * view instead of a scan. A session matches when it matches every query term; it is ranked by
+ * the sum, over the query terms, of the field weight times the rarity (idf) of the matching
+ * term, exact terms weighing more than prefix matches.
+ *
+ * <p>Built from the database once the application is ready, then kept in step with the
+ * committed changes of {@link SessionService}. Changes made by other nodes, or whose event was
+ * lost, are caught up every {@code oc.app.sessionSearchReconcileIntervalMs}: a checksum of the
+ * indexed text is compared with the one read at the last build, and the index is rebuilt when
+ * they differ. Bookings do not change the checksum, so they never cause a rebuild.
+ *
+ * <p>A rebuild reads the table into a new index without holding the lock, then swaps it in,
+ * so searches are not blocked while the table is read.
+ */
+@Service
+public class SessionSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SessionSearchIndex.class);
+
+    private static final float NAME_WEIGHT = 3f;
+
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private static final float PREFIX_WEIGHT = 0.5f;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "au", "aux", "avec", "ce", "ces", "dans", "de", "des", "du", "en", "et", "la", "le", "les",
+            "ou", "par", "pour", "sur", "un", "une", "and", "for", "of", "the", "to", "with"));
+
+    private final SessionRepository sessionRepository;
+
+    /**
+     * Guards the changes applied to the current index in place, not the swap of a rebuilt one.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Terms terms = new Terms();
+
+    /**
+     * Changes applied while a rebuild reads the table, replayed on the rebuilt index before it is
+     * swapped in; null when no rebuild runs. Guarded by the write lock.
+     */
+    private List<SessionChangedEvent> changesDuringRebuild;
+
+    /**
+     * Checksum of the text read before the rows of the last build, null until a build succeeds.
+     */
+    private volatile String indexedVersion;
+
+    public SessionSearchIndex(SessionRepository sessionRepository) {
+        this.sessionRepository = sessionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            logger.error("Cannot build the session search index", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.sessionSearchReconcileIntervalMs:60000}",
+            initialDelayString = "${oc.app.sessionSearchReconcileIntervalMs:60000}")
+    public void reconcilePeriodically() {
+        try {
+            reconcile();
+        } catch (DataAccessException e) {
+            logger.warn("Cannot reconcile the session search index, retrying at the next interval", e);
+        }
+    }
+
+    /**
+     * Rebuilds the index if the indexed text changed since it was last built.
+     */
+    void reconcile() {
+        String indexed = this.indexedVersion;
+        if (indexed != null && indexed.equals(this.sessionRepository.findSearchableTextVersion())) {
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Reads the table into a new index, then swaps it in. The changes committed meanwhile are
+     * replayed on it first, so that the older copy being read does not overwrite them. The
+     * version is read before the rows: a change committed between the two reads only makes the
+     * next reconcile rebuild again.
+     */
+    synchronized void rebuild() {
+        String version = this.sessionRepository.findSearchableTextVersion();
+        recordChanges(new ArrayList<>());
+        Terms rebuilt = new Terms();
+        try {
+            for (Object[] row : this.sessionRepository.findSearchableText()) {
+                rebuilt.add((Long) row[0], (String) row[1], (String) row[2]);
+            }
+        } catch (RuntimeException e) {
+            recordChanges(null);
+            throw e;
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            this.changesDuringRebuild.forEach(rebuilt::apply);
+            this.changesDuringRebuild = null;
+            this.terms = rebuilt;
+            this.indexedVersion = version;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        logger.info("Indexed {} sessions, {} terms", rebuilt.termsBySession.size(), rebuilt.postings.size());
+    }
+
+    private void recordChanges(List<SessionChangedEvent> changes) {
+        this.lock.writeLock().lock();
+        try {
+            this.changesDuringRebuild = changes;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        this.lock.writeLock().lock();
+        try {
+            this.terms.apply(event);
+            if (this.changesDuringRebuild != null) {
+                this.changesDuringRebuild.add(event);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ids of the best matching sessions, best first
+     */
+    public List<Long> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit < 1) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Float> scores = null;
+        this.lock.readLock().lock();
+        try {
+            Terms current = this.terms;
+            int sessionCount = current.termsBySession.size();
+            for (String queryTerm : queryTerms) {
+                Map<Long, Float> termScores = new HashMap<>();
+                // Every indexed term starting with the query term sorts between these bounds.
+                for (Map.Entry<String, Map<Long, Float>> term
+                        : current.postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+                    Map<Long, Float> posting = term.getValue();
+                    float idf = (float) Math.log(1 + (double) sessionCount / posting.size());
+                    float boost = term.getKey().equals(queryTerm) ? 1f : PREFIX_WEIGHT;
+                    posting.forEach((id, weight) -> termScores.merge(id, weight * idf * boost, Math::max));
+                }
+
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lowercases, folds accents and ligatures, and splits on anything but letters and digits.
+     * Single characters and common French and English words are dropped.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT)
+                .replace("œ", "oe")
+                .replace("æ", "ae")
+                .replace("ß", "ss");
+
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(folded)) {
+            if (term.length() > 1 && !STOP_WORDS.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * The index proper. Built apart by a rebuild, then only changed under the write lock.
+     */
+    private static final class Terms {
+        /**
+         * Term to the weight of the term in each session containing it.
+         */
+        private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+
+        /**
+         * Session to its terms, to remove a session without walking every posting list.
+         */
+        private final Map<Long, Set<String>> termsBySession = new HashMap<>();
+
+        void apply(SessionChangedEvent event) {
+            remove(event.getId());
+            if (!event.isDeleted()) {
+                add(event.getId(), event.getName(), event.getDescription());
+            }
+        }
+
+        void add(Long id, String name, String description) {
+            Map<String, Float> weights = new HashMap<>();
+            tokenize(name).forEach(term -> weights.merge(term, NAME_WEIGHT, Float::sum));
+            tokenize(description).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Float::sum));
+
+            weights.forEach((term, weight) -> this.postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+            this.termsBySession.put(id, weights.keySet());
+        }
+
+        private void remove(Long id) {
+            Set<String> terms = this.termsBySession.remove(id);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Map<Long, Float> posting = this.postings.get(term);
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    this.postings.remove(term);
+                }
+            }
+        }
+    }
+}
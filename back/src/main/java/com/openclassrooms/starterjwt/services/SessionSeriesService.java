@@ -0,0 +1,177 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.SessionFullException;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.OccurrenceRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Recurring sessions. A series only creates its occurrences up to a horizon of
+ * {@code oc.app.seriesHorizonDays} days; a background job moves the horizon forward as time
+ * passes, so an open-ended series never holds more than a few months of rows.
+ */
+@Service
+public class SessionSeriesService {
+    private static final Logger logger = LoggerFactory.getLogger(SessionSeriesService.class);
+
+    private final SessionSeriesRepository seriesRepository;
+
+    private final OccurrenceRepository occurrenceRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SessionCache sessionCache;
+
+    @Value("${oc.app.seriesHorizonDays:90}")
+    private int horizonDays;
+
+    @Value("${oc.app.seriesInsertBatchSize:500}")
+    private int insertBatchSize;
+
+    public SessionSeriesService(SessionSeriesRepository seriesRepository,
+                                OccurrenceRepository occurrenceRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                SessionCache sessionCache) {
+        this.seriesRepository = seriesRepository;
+        this.occurrenceRepository = occurrenceRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sessionCache = sessionCache;
+    }
+
+    public SessionSeries getById(Long id) {
+        return this.seriesRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Saves the series and creates its occurrences up to the horizon.
+     *
+     * @throws BadRequestException if the recurrence rule is invalid or the series ends before it starts
+     */
+    @Transactional
+    public SessionSeries create(SessionSeries series) {
+        RecurrenceRule rule = RecurrenceRule.parse(series.getRecurrence());
+        if (series.getEndsAt() != null && !series.getEndsAt().isAfter(series.getStartAt())) {
+            throw new BadRequestException();
+        }
+
+        series.setRecurrence(rule.toString());
+        series.setMaterializedUntil(series.getStartAt());
+        SessionSeries created = this.seriesRepository.save(series);
+        materialize(created, horizon());
+        return created;
+    }
+
+    /**
+     * Applies the name, description, teacher and capacity of {@code changes} to the series and,
+     * in one statement, to all of its occurrences to come, including those edited one by one.
+     * Past occurrences are left as they were. The schedule of a series does not change: its
+     * occurrences are cancelled one by one, by deleting them.
+     *
+     * @throws SessionFullException if an occurrence to come has more participants than the new capacity
+     */
+    @Transactional
+    public SessionSeries update(Long id, SessionSeries changes) {
+        SessionSeries series = this.seriesRepository.findForUpdate(id).orElseThrow(NotFoundException::new);
+        series.setName(changes.getName());
+        series.setDescription(changes.getDescription());
+        series.setTeacher(changes.getTeacher());
+        series.setCapacity(changes.getCapacity());
+
+        LocalDateTime now = LocalDateTime.now();
+        this.occurrenceRepository.updateFrom(series, now);
+        if (series.getCapacity() != null && this.occurrenceRepository.countOverbookedFrom(id, now) > 0) {
+            throw new SessionFullException();
+        }
+
+        List<Long> sessionIds = this.occurrenceRepository.findIds(id, now, null);
+        publishChanges(series, sessionIds);
+        this.sessionCache.evictAll(sessionIds);
+        return this.seriesRepository.save(series);
+    }
+
+    /**
+     * Moves the horizon of every series forward, one transaction per series. A series which
+     * fails is left behind until the next run.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.seriesExtensionIntervalMs:3600000}",
+            initialDelayString = "${oc.app.seriesExtensionIntervalMs:3600000}")
+    public void extendHorizons() {
+        LocalDateTime horizon = horizon();
+        List<Long> seriesIds;
+        try {
+            seriesIds = this.seriesRepository.findIdsToExtend(horizon);
+        } catch (DataAccessException e) {
+            logger.error("Cannot look for session series to extend", e);
+            return;
+        }
+
+        for (Long seriesId : seriesIds) {
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> this.seriesRepository.findForUpdate(seriesId)
+                        .ifPresent(series -> materialize(series, horizon)));
+            } catch (DataAccessException e) {
+                logger.warn("Cannot extend session series {}", seriesId, e);
+            }
+        }
+    }
+
+    /**
+     * Creates the occurrences between the current horizon of the series and {@code horizon},
+     * or the end of the series if it comes first, in batched inserts. Must run in the
+     * transaction which holds the series, locked unless it has just been created.
+     */
+    void materialize(SessionSeries series, LocalDateTime horizon) {
+        LocalDateTime from = series.getMaterializedUntil();
+        LocalDateTime until = series.getEndsAt() != null && series.getEndsAt().isBefore(horizon)
+                ? series.getEndsAt()
+                : horizon;
+        if (!from.isBefore(until)) {
+            return;
+        }
+
+        Set<LocalDate> exceptions = series.getExceptions() != null ? series.getExceptions() : Collections.emptySet();
+        List<LocalDateTime> dates = RecurrenceRule.parse(series.getRecurrence())
+                .occurrences(series.getStartAt(), from, until).stream()
+                .filter(date -> !exceptions.contains(date.toLocalDate()))
+                .collect(Collectors.toList());
+        if (!dates.isEmpty()) {
+            this.occurrenceRepository.insertAll(series, dates, this.insertBatchSize);
+            publishChanges(series, this.occurrenceRepository.findIds(series.getId(), from, until));
+        }
+        series.setMaterializedUntil(until);
+    }
+
+    private void publishChanges(SessionSeries series, List<Long> sessionIds) {
+        for (Long sessionId : sessionIds) {
+            this.eventPublisher.publishEvent(
+                    SessionChangedEvent.saved(sessionId, series.getName(), series.getDescription()));
+        }
+    }
+
+    private LocalDateTime horizon() {
+        return LocalDateTime.now().plusDays(this.horizonDays);
+    }
+}
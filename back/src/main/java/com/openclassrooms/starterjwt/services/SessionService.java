@@ -1,78 +1,358 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.config.CacheConfig;
+import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.SessionFullException;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
-import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.SessionVersion;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class SessionService {
     private final SessionRepository sessionRepository;
 
-    private final UserRepository userRepository;
+    private final ParticipationRepository participationRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SessionSearchIndex searchIndex;
+
+    private final EntityManager entityManager;
+
+    private final SessionMapper sessionMapper;
+
+    @Value("${oc.app.sessionPageDefaultSize:20}")
+    private int defaultPageSize;
+
+    @Value("${oc.app.sessionPageMaxSize:100}")
+    private int maxPageSize;
+
+    @Value("${oc.app.participantPageDefaultSize:50}")
+    private int defaultParticipantPageSize;
+
+    @Value("${oc.app.participantPageMaxSize:500}")
+    private int maxParticipantPageSize;
+
+    public SessionService(SessionRepository sessionRepository,
+                          ParticipationRepository participationRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          SessionSearchIndex searchIndex,
+                          EntityManager entityManager,
+                          SessionMapper sessionMapper) {
         this.sessionRepository = sessionRepository;
-        this.userRepository = userRepository;
+        this.participationRepository = participationRepository;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.entityManager = entityManager;
+        this.sessionMapper = sessionMapper;
     }
 
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        countParticipants(session);
+        Session created = this.sessionRepository.save(session);
+        this.eventPublisher.publishEvent(SessionChangedEvent.saved(created));
+        return created;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.SESSIONS_CACHE, key = "#id")
     public void delete(Long id) {
         this.sessionRepository.deleteById(id);
+        this.eventPublisher.publishEvent(SessionChangedEvent.deleted(id));
+    }
+
+    /**
+     * Full-text search over session names and descriptions, best matches first.
+     *
+     * @param limit maximum number of sessions, capped to {@code oc.app.sessionPageMaxSize}
+     */
+    public List<Session> search(String query, Integer limit) {
+        List<Long> ids = this.searchIndex.search(query, pageLimit(limit, this.defaultPageSize, this.maxPageSize));
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Session> sessions = this.sessionRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Session::getId, Function.identity()));
+        // A session deleted since it was found is simply left out.
+        return ids.stream().map(sessions::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    /**
+     * Hands every session to {@code consumer} in id order, as they are read from the database.
+     * Each session is detached once consumed, so that memory use does not grow with the number
+     * of sessions. Participants cannot be loaded from the consumer.
+     */
+    @Transactional(readOnly = true)
+    public void forEachSession(Consumer<Session> consumer) {
+        try (Stream<Session> sessions = this.sessionRepository.streamAll()) {
+            sessions.forEach(session -> {
+                consumer.accept(session);
+                this.entityManager.detach(session);
+            });
+        }
+    }
+
+    /**
+     * Same as {@link #findAll()}, read as DTOs instead of loading entities.
+     */
+    public List<SessionDto> findAllSummaries(boolean includeUsers) {
+        return this.sessionRepository.findSummaries(null, null, null, null, null, null, includeUsers);
+    }
+
+    /**
+     * Returns one page of sessions ordered by (date, id).
+     *
+     * @param cursor the {@link Page#getNextCursor()} of the previous page, null for the first page
+     * @param size requested page size, capped to {@code oc.app.sessionPageMaxSize}
+     */
+    public Page findPage(String cursor, Integer size, Date from, Date to, Long teacherId, boolean includeUsers) {
+        int limit = pageLimit(size, this.defaultPageSize, this.maxPageSize);
+
+        Date afterDate = null;
+        Long afterId = null;
+        if (cursor != null) {
+            long[] key = decodeCursor(cursor);
+            afterDate = new Date(key[0]);
+            afterId = key[1];
+        }
+
+        // One extra row tells whether there is a next page without a count query.
+        List<SessionDto> sessions = this.sessionRepository.findSummaries(teacherId, from, to, afterDate, afterId, limit + 1, includeUsers);
+        if (sessions.size() <= limit) {
+            return new Page(sessions, null);
+        }
+
+        List<SessionDto> page = sessions.subList(0, limit);
+        SessionDto last = page.get(limit - 1);
+        return new Page(page, encodeCursor(last.getDate(), last.getId()));
+    }
+
+    /**
+     * Returns one page of the participants of a session ordered by id.
+     *
+     * @param cursor the {@link ParticipantPage#getNextCursor()} of the previous page, null for the first page
+     * @param size requested page size, capped to {@code oc.app.participantPageMaxSize}
+     * @throws NotFoundException if the session does not exist
+     */
+    public ParticipantPage findParticipants(Long id, String cursor, Integer size) {
+        int limit = pageLimit(size, this.defaultParticipantPageSize, this.maxParticipantPageSize);
+        Long afterId = cursor != null ? decodeCursor(cursor, 1)[0] : null;
+
+        List<User> users = this.sessionRepository.findParticipants(id, afterId, PageRequest.of(0, limit + 1));
+        if (users.isEmpty() && cursor == null && !this.sessionRepository.existsById(id)) {
+            throw new NotFoundException();
+        }
+        if (users.size() <= limit) {
+            return new ParticipantPage(users, null);
+        }
+
+        List<User> page = users.subList(0, limit);
+        return new ParticipantPage(page, encodeCursor(page.get(limit - 1).getId()));
+    }
+
+    private static int pageLimit(Integer size, int defaultSize, int maxSize) {
+        int limit = size != null ? size : defaultSize;
+        if (limit < 1) {
+            throw new BadRequestException();
+        }
+        return Math.min(limit, maxSize);
+    }
+
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
+    /**
+     * The session without its participant ids, read through the session cache. Concurrent
+     * misses on the same id wait for a single load rather than all querying the database.
+     *
+     * @throws NotFoundException if the session does not exist, which is not cached
+     */
+    @Cacheable(cacheNames = CacheConfig.SESSIONS_CACHE, key = "#id", sync = true)
+    public SessionDto findDtoById(Long id) {
+        return this.sessionRepository.findById(id)
+                .map(this.sessionMapper::toDtoWithoutUsers)
+                .orElseThrow(NotFoundException::new);
+    }
+
+    /**
+     * @return a version of the session, which counts no session if it does not exist
+     */
+    public SessionVersion findVersion(Long id) {
+        return this.sessionRepository.findVersion(id);
+    }
+
+    /**
+     * @return a version of the whole session table, which changes with any session
+     */
+    public SessionVersion findVersion() {
+        return this.sessionRepository.findVersion();
+    }
+
+    /**
+     * Without a participant list, the participants of the session are kept; with one, they are
+     * replaced by it and the participant count is recounted from them. The session row is locked
+     * first, so that no booking commits between the capacity check and the save.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SESSIONS_CACHE, key = "#id")
     public Session update(Long id, Session session) {
         session.setId(id);
-        return this.sessionRepository.save(session);
+        Session existing = this.sessionRepository.findForUpdate(id).orElse(null);
+        boolean replacesUsers = session.getUsers() != null;
+        if (existing != null && !replacesUsers) {
+            // The uninitialized collection is handed over as is, so merging does not load it.
+            session.setUsers(existing.getUsers());
+            session.setParticipantCount(existing.getParticipantCount());
+            checkCapacity(session);
+        } else {
+            countParticipants(session);
+        }
+
+        Session updated = this.sessionRepository.save(session);
+        if (existing != null && replacesUsers) {
+            // The PARTICIPATE rows are replaced when the merge is flushed.
+            this.entityManager.flush();
+            this.participationRepository.recountSeats(id);
+        }
+        this.eventPublisher.publishEvent(SessionChangedEvent.saved(updated));
+        return updated;
+    }
+
+    /**
+     * The participant list of a created or updated session replaces the PARTICIPATE rows, so the
+     * counter is reset to its size.
+     */
+    private void countParticipants(Session session) {
+        session.setParticipantCount(session.getUsers() != null ? session.getUsers().size() : 0);
+        checkCapacity(session);
     }
 
+    private static void checkCapacity(Session session) {
+        if (session.getCapacity() != null && session.getParticipantCount() > session.getCapacity()) {
+            throw new SessionFullException();
+        }
+    }
+
+    /**
+     * Takes a seat, then writes the participation. Any failure rolls the seat back.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SESSIONS_CACHE, key = "#id")
     public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
-            throw new NotFoundException();
+        if (!this.participationRepository.reserveSeat(id)) {
+            if (!this.sessionRepository.existsById(id)) {
+                throw new NotFoundException();
+            }
+            throw new SessionFullException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+        try {
+            this.participationRepository.insert(id, userId);
+        } catch (DuplicateKeyException e) {
             throw new BadRequestException();
+        } catch (DataIntegrityViolationException e) {
+            // The foreign keys of PARTICIPATE reject unknown sessions and users.
+            throw new NotFoundException();
         }
+    }
 
-        session.getUsers().add(user);
+    static String encodeCursor(Date date, Long id) {
+        return encodeCursor(date.getTime() + ":" + id);
+    }
 
-        this.sessionRepository.save(session);
+    static String encodeCursor(Long id) {
+        return encodeCursor(String.valueOf(id));
     }
 
-    public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
-            throw new NotFoundException();
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return the date and id of a session cursor
+     */
+    static long[] decodeCursor(String cursor) {
+        return decodeCursor(cursor, 2);
+    }
+
+    private static long[] decodeCursor(String cursor, int length) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = key.split(":", -1);
+            if (parts.length != length) {
+                throw new BadRequestException();
+            }
+            long[] values = new long[length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Long.parseLong(parts[i]);
+            }
+            return values;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
         }
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SESSIONS_CACHE, key = "#id")
+    public void noLongerParticipate(Long id, Long userId) {
+        if (!this.participationRepository.delete(id, userId)) {
+            // Only the failure path pays for telling an unknown session from a non-participant.
+            if (!this.sessionRepository.existsById(id)) {
+                throw new NotFoundException();
+            }
             throw new BadRequestException();
         }
+        this.participationRepository.releaseSeat(id);
+        this.eventPublisher.publishEvent(new SeatReleasedEvent(id));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Page {
+        private final List<SessionDto> sessions;
+
+        private final String nextCursor;
+    }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+    @Getter
+    @AllArgsConstructor
+    public static class ParticipantPage {
+        private final List<User> users;
 
-        this.sessionRepository.save(session);
+        private final String nextCursor;
     }
 }
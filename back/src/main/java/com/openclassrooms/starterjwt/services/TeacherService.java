@@ -2,23 +2,172 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.Version;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * Teachers, served from an immutable snapshot of the whole table. Teachers seldom change but
+ * are looked up for every session displayed, so while the snapshot is fresh a read only
+ * dereferences a volatile field, without locking or reaching the database.
+ *
+ * <p>The snapshot is loaded once the application is ready, then refreshed every
+ * {@code oc.app.teacherRefreshIntervalMs}, ahead of its expiry after
+ * {@code oc.app.teacherSnapshotTtlMs}. A refresh compares the count and last update of the
+ * table with those of the snapshot and only reads the table when they differ. Before the first
+ * load, once the snapshot has expired because refreshes keep failing, and for ids missing from
+ * the snapshot, reads go to the repository.
+ */
 @Service
 public class TeacherService {
+    private static final Logger logger = LoggerFactory.getLogger(TeacherService.class);
+
     private final TeacherRepository teacherRepository;
 
+    @Value("${oc.app.teacherSnapshotTtlMs:900000}")
+    private long snapshotTtlMs;
+
+    private volatile Snapshot snapshot;
+
     public TeacherService(TeacherRepository teacherRepository) {
         this.teacherRepository = teacherRepository;
     }
 
     public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+        Snapshot current = freshSnapshot();
+        return current != null ? current.teachers : this.teacherRepository.findAll();
     }
 
     public Teacher findById(Long id) {
-        return this.teacherRepository.findById(id).orElse(null);
+        Snapshot current = freshSnapshot();
+        Teacher teacher = current != null ? current.teachersById.get(id) : null;
+        return teacher != null ? teacher : this.teacherRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * @return when the teacher last changed, null if it does not exist
+     */
+    public LocalDateTime findUpdatedAt(Long id) {
+        Snapshot current = freshSnapshot();
+        Teacher teacher = current != null ? current.teachersById.get(id) : null;
+        return teacher != null ? teacher.getUpdatedAt() : this.teacherRepository.findUpdatedAt(id).orElse(null);
+    }
+
+    public Version findVersion() {
+        Snapshot current = freshSnapshot();
+        return current != null ? current : this.teacherRepository.findVersion();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            logger.error("Cannot load the teachers", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.teacherRefreshIntervalMs:300000}",
+            initialDelayString = "${oc.app.teacherRefreshIntervalMs:300000}")
+    public void refreshAhead() {
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            logger.warn("Cannot refresh the teachers, keeping the current snapshot until it expires", e);
+        }
+    }
+
+    /**
+     * Reads the table again if it changed since the snapshot was taken, and in any case pushes
+     * back the expiry of the snapshot.
+     */
+    synchronized void refresh() {
+        Snapshot current = this.snapshot;
+        Version version = this.teacherRepository.findVersion();
+        if (current != null
+                && Objects.equals(current.getCount(), version.getCount())
+                && Objects.equals(current.getUpdatedAt(), version.getUpdatedAt())) {
+            this.snapshot = current.renewed(System.currentTimeMillis() + this.snapshotTtlMs);
+            return;
+        }
+        reload();
+    }
+
+    /**
+     * Replaces the snapshot with the current content of the table.
+     */
+    public synchronized void reload() {
+        List<Teacher> teachers = this.teacherRepository.findAllByOrderByIdAsc();
+        this.snapshot = new Snapshot(teachers, System.currentTimeMillis() + this.snapshotTtlMs);
+        logger.info("Loaded {} teachers", teachers.size());
+    }
+
+    private Snapshot freshSnapshot() {
+        Snapshot current = this.snapshot;
+        return current != null && System.currentTimeMillis() < current.expiresAt ? current : null;
+    }
+
+    /**
+     * Never modified once built; its version is taken from the rows it holds, so that it always
+     * matches them.
+     */
+    private static final class Snapshot implements Version {
+        private final List<Teacher> teachers;
+
+        private final Map<Long, Teacher> teachersById;
+
+        private final LocalDateTime updatedAt;
+
+        private final long expiresAt;
+
+        Snapshot(List<Teacher> teachers, long expiresAt) {
+            Map<Long, Teacher> teachersById = new HashMap<>();
+            LocalDateTime updatedAt = null;
+            for (Teacher teacher : teachers) {
+                teachersById.put(teacher.getId(), teacher);
+                if (teacher.getUpdatedAt() != null && (updatedAt == null || teacher.getUpdatedAt().isAfter(updatedAt))) {
+                    updatedAt = teacher.getUpdatedAt();
+                }
+            }
+            this.teachers = Collections.unmodifiableList(new ArrayList<>(teachers));
+            this.teachersById = Collections.unmodifiableMap(teachersById);
+            this.updatedAt = updatedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        private Snapshot(Snapshot snapshot, long expiresAt) {
+            this.teachers = snapshot.teachers;
+            this.teachersById = snapshot.teachersById;
+            this.updatedAt = snapshot.updatedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        Snapshot renewed(long expiresAt) {
+            return new Snapshot(this, expiresAt);
+        }
+
+        @Override
+        public Long getCount() {
+            return (long) this.teachers.size();
+        }
+
+        @Override
+        public LocalDateTime getUpdatedAt() {
+            return this.updatedAt;
+        }
     }
 }
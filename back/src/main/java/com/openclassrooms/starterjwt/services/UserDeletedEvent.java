@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published once a user account has been removed, so that anything holding on to the
+ * account's principal can drop it.
+ */
+@Getter
+@AllArgsConstructor
+public class UserDeletedEvent {
+    private final Long id;
+
+    private final String email;
+}
@@ -0,0 +1,370 @@
+package com.openclassrooms.starterjwt.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.payload.response.UserImportReport;
+import com.openclassrooms.starterjwt.payload.response.UserImportReport.Status;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Registers users in bulk from a CSV or NDJSON stream. Rows are read and processed in batches:
+ * the emails of a batch are checked in a single query, the passwords are hashed in parallel and
+ * the users are written with one JDBC batch, so the input never has to fit in memory. The outcome
+ * of each row is handed to the caller once its batch is done rather than kept, so neither does
+ * the report.
+ */
+@Service
+public class UserImportService {
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final String INSERT_USER =
+            "INSERT INTO USERS (email, last_name, first_name, password, admin) VALUES (?, ?, ?, ?, false)";
+
+    private static final String[] CSV_COLUMNS = {"email", "firstName", "lastName", "password"};
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    /**
+     * Hashing runs on its own pool rather than the one of the login encoder, whose queue is sized
+     * for interactive traffic and would reject a batch. BCrypt is CPU bound, so the pool has one
+     * thread per processor unless {@code oc.app.userImportHashingThreads} is set.
+     */
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final ThreadPoolExecutor hashingExecutor;
+
+    public UserImportService(UserRepository userRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             @Value("${oc.app.userImportHashingThreads:0}") int hashingThreads,
+                             @Value("${oc.app.userImportBatchSize:500}") int batchSize) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        this.hashingExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), new CustomizableThreadFactory("user-import-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Reads the CSV header, so that an import without the expected columns is rejected before
+     * any row is processed.
+     */
+    public Source open(InputStream input, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return new Source(reader, format, format == Format.CSV ? readCsvHeader(reader) : null);
+    }
+
+    public UserImportReport importUsers(InputStream input, Format format, Consumer<UserImportReport.Row> rows)
+            throws IOException {
+        return importUsers(open(input, format), rows);
+    }
+
+    /**
+     * @param rows receives the outcome of every row, in input order
+     * @return the totals of the import
+     */
+    public UserImportReport importUsers(Source source, Consumer<UserImportReport.Row> rows) throws IOException {
+        UserImportReport report = new UserImportReport();
+        Set<String> seenEmails = new HashSet<>();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        long lineNumber = source.format == Format.CSV ? 1 : 0;
+
+        String line;
+        while ((line = source.reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            batch.add(parse(line, lineNumber, source.format, source.columns));
+            if (batch.size() == batchSize) {
+                importBatch(batch, seenEmails, report, rows);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            importBatch(batch, seenEmails, report, rows);
+        }
+
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingExecutor.shutdown();
+    }
+
+    private void importBatch(List<PendingRow> batch, Set<String> seenEmails, UserImportReport report,
+                             Consumer<UserImportReport.Row> rows) {
+        List<PendingRow> candidates = new ArrayList<>(batch.size());
+        for (PendingRow row : batch) {
+            if (row.status != null) {
+                continue;
+            }
+
+            Set<ConstraintViolation<SignupRequest>> violations = validator.validate(row.request);
+            if (!violations.isEmpty()) {
+                row.reject(Status.INVALID, violations.stream()
+                        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            } else if (!seenEmails.add(row.request.getEmail().toLowerCase(Locale.ROOT))) {
+                row.reject(Status.DUPLICATE, "Email appears more than once in the import");
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<String> taken = userRepository.findExistingEmails(candidates.stream()
+                            .map(row -> row.request.getEmail())
+                            .collect(Collectors.toList()))
+                    .stream()
+                    .map(email -> email.toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toSet());
+
+            List<PendingRow> inserts = new ArrayList<>(candidates.size());
+            for (PendingRow row : candidates) {
+                if (taken.contains(row.request.getEmail().toLowerCase(Locale.ROOT))) {
+                    row.reject(Status.DUPLICATE, "Email is already taken");
+                } else {
+                    inserts.add(row);
+                }
+            }
+
+            if (!inserts.isEmpty()) {
+                hashPasswords(inserts);
+                insert(inserts);
+            }
+        }
+
+        for (PendingRow row : batch) {
+            UserImportReport.Row outcome = new UserImportReport.Row(row.line,
+                    row.request != null ? row.request.getEmail() : null, row.status, row.message);
+            report.add(outcome);
+            rows.accept(outcome);
+        }
+    }
+
+    private void hashPasswords(List<PendingRow> rows) {
+        List<Future<String>> hashes = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            String password = row.request.getPassword();
+            hashes.add(hashingExecutor.submit(() -> passwordEncoder.encode(password)));
+        }
+
+        try {
+            for (int i = 0; i < rows.size(); i++) {
+                rows.get(i).passwordHash = hashes.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            hashes.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("User import was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * The whole batch goes in one transaction. If an email was registered concurrently since it
+     * was checked, the batch is rolled back and replayed row by row to single out the conflict.
+     */
+    private void insert(List<PendingRow> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_USER, rows, rows.size(),
+                    (ps, row) -> {
+                        ps.setString(1, row.request.getEmail());
+                        ps.setString(2, row.request.getLastName());
+                        ps.setString(3, row.request.getFirstName());
+                        ps.setString(4, row.passwordHash);
+                    }));
+            rows.forEach(row -> row.status = Status.IMPORTED);
+        } catch (DuplicateKeyException e) {
+            for (PendingRow row : rows) {
+                try {
+                    jdbcTemplate.update(INSERT_USER, row.request.getEmail(), row.request.getLastName(),
+                            row.request.getFirstName(), row.passwordHash);
+                    row.status = Status.IMPORTED;
+                } catch (DuplicateKeyException duplicate) {
+                    row.reject(Status.DUPLICATE, "Email is already taken");
+                }
+            }
+        }
+    }
+
+    private PendingRow parse(String line, long lineNumber, Format format, int[] columns) {
+        if (format == Format.NDJSON) {
+            try {
+                return new PendingRow(lineNumber, objectMapper.readValue(line, SignupRequest.class));
+            } catch (JsonProcessingException e) {
+                return PendingRow.invalid(lineNumber, "Malformed JSON");
+            }
+        }
+
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            return PendingRow.invalid(lineNumber, "Malformed CSV");
+        }
+
+        SignupRequest request = new SignupRequest();
+        request.setEmail(field(fields, columns[0]));
+        request.setFirstName(field(fields, columns[1]));
+        request.setLastName(field(fields, columns[2]));
+        request.setPassword(field(fields, columns[3]));
+        return new PendingRow(lineNumber, request);
+    }
+
+    private int[] readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        List<String> names = header != null ? splitCsv(header) : null;
+        if (names == null) {
+            throw new BadRequestException();
+        }
+
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            positions.put(names.get(i).trim(), i);
+        }
+
+        int[] columns = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            Integer position = positions.get(CSV_COLUMNS[i]);
+            if (position == null) {
+                throw new BadRequestException();
+            }
+            columns[i] = position;
+        }
+        return columns;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    /**
+     * Splits one RFC 4180 record. Quoted fields may contain commas and doubled quotes, but not
+     * line breaks. Returns null when a quote is left open.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * An import whose header has been read, ready to be run.
+     */
+    public static final class Source {
+        private final BufferedReader reader;
+        private final Format format;
+        private final int[] columns;
+
+        private Source(BufferedReader reader, Format format, int[] columns) {
+            this.reader = reader;
+            this.format = format;
+            this.columns = columns;
+        }
+    }
+
+    private static final class PendingRow {
+        private final long line;
+        private final SignupRequest request;
+        private Status status;
+        private String message;
+        private String passwordHash;
+
+        private PendingRow(long line, SignupRequest request) {
+            this.line = line;
+            this.request = request;
+        }
+
+        private static PendingRow invalid(long line, String message) {
+            PendingRow row = new PendingRow(line, null);
+            row.reject(Status.INVALID, message);
+            return row;
+        }
+
+        private void reject(Status status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+}
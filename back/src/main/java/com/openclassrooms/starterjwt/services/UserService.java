@@ -1,22 +1,61 @@
 package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final ParticipationRepository participationRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SessionCache sessionCache;
+
+    public UserService(UserRepository userRepository,
+                       ParticipationRepository participationRepository,
+                       ApplicationEventPublisher eventPublisher,
+                       SessionCache sessionCache) {
         this.userRepository = userRepository;
+        this.participationRepository = participationRepository;
+        this.eventPublisher = eventPublisher;
+        this.sessionCache = sessionCache;
     }
 
+    @Transactional
     public void delete(Long id) {
+        User user = this.userRepository.findById(id).orElse(null);
+
+        // Their participant counts go down.
+        this.sessionCache.evictAll(this.participationRepository.deleteAllForUser(id));
         this.userRepository.deleteById(id);
+
+        if (user != null) {
+            this.eventPublisher.publishEvent(new UserDeletedEvent(user.getId(), user.getEmail()));
+        }
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    /**
+     * @return when the user last changed, null if it does not exist
+     */
+    public LocalDateTime findUpdatedAt(Long id) {
+        return this.userRepository.findUpdatedAt(id).orElse(null);
+    }
+
+    public List<User> findAllById(Collection<Long> ids) {
+        return this.userRepository.findAllById(ids);
+    }
 }
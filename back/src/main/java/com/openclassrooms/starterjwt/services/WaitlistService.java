@@ -0,0 +1,178 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.payload.response.WaitlistPositionResponse;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FIFO waitlist of full sessions. Requests only queue and read positions; seats are handed to
+ * waiting users by a background worker, one transaction per session, which takes the same
+ * session row lock as a booking.
+ */
+@Service
+public class WaitlistService {
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+
+    private final WaitlistRepository waitlistRepository;
+
+    private final ParticipationRepository participationRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SessionCache sessionCache;
+
+    /**
+     * Sessions which may have both a free seat and waiting users.
+     */
+    private final Set<Long> pendingSessions = ConcurrentHashMap.newKeySet();
+
+    @Value("${oc.app.waitlistPromotionBatchSize:100}")
+    private int batchSize;
+
+    public WaitlistService(WaitlistRepository waitlistRepository,
+                           ParticipationRepository participationRepository,
+                           PlatformTransactionManager transactionManager,
+                           SessionCache sessionCache) {
+        this.waitlistRepository = waitlistRepository;
+        this.participationRepository = participationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sessionCache = sessionCache;
+    }
+
+    /**
+     * Queues the user. A session that a direct booking would get a seat of cannot be joined:
+     * the entry would only hold back the bookings until the next promotion run. A seat freed
+     * after the check goes to the queue, as usual.
+     */
+    public WaitlistPositionResponse join(Long sessionId, Long userId) {
+        if (this.participationRepository.exists(sessionId, userId)) {
+            throw new BadRequestException();
+        }
+
+        Boolean bookable = this.waitlistRepository.isBookable(sessionId);
+        if (bookable == null) {
+            throw new NotFoundException();
+        }
+        if (bookable) {
+            throw new BadRequestException();
+        }
+
+        try {
+            this.waitlistRepository.insert(sessionId, userId);
+        } catch (DuplicateKeyException e) {
+            throw new BadRequestException();
+        } catch (DataIntegrityViolationException e) {
+            throw new NotFoundException();
+        }
+        this.pendingSessions.add(sessionId);
+
+        return getPosition(sessionId, userId);
+    }
+
+    public void leave(Long sessionId, Long userId) {
+        if (!this.waitlistRepository.delete(sessionId, userId)) {
+            throw new NotFoundException();
+        }
+    }
+
+    /**
+     * @throws NotFoundException if the user neither waits for nor participates in the session
+     */
+    public WaitlistPositionResponse getPosition(Long sessionId, Long userId) {
+        Integer position = this.waitlistRepository.position(sessionId, userId);
+        if (position != null) {
+            return new WaitlistPositionResponse(sessionId, userId, position, false);
+        }
+        if (this.participationRepository.exists(sessionId, userId)) {
+            return new WaitlistPositionResponse(sessionId, userId, null, true);
+        }
+        throw new NotFoundException();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatReleased(SeatReleasedEvent event) {
+        this.pendingSessions.add(event.getSessionId());
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.waitlistPromotionIntervalMs:1000}",
+            initialDelayString = "${oc.app.waitlistPromotionIntervalMs:1000}")
+    public void promotePending() {
+        if (this.pendingSessions.isEmpty()) {
+            return;
+        }
+
+        List<Long> sessionIds = new ArrayList<>(this.pendingSessions);
+        this.pendingSessions.removeAll(sessionIds);
+
+        for (Long sessionId : sessionIds) {
+            try {
+                // A full batch may leave both seats and waiting users behind.
+                if (promote(sessionId) == this.batchSize) {
+                    this.pendingSessions.add(sessionId);
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Cannot promote the waitlist of session {}, retrying", sessionId, e);
+                this.pendingSessions.add(sessionId);
+            }
+        }
+    }
+
+    /**
+     * Catches the promotions no event triggered: seats freed on another node, a capacity raised
+     * or a node stopped before its worker ran.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.waitlistSweepIntervalMs:60000}",
+            initialDelayString = "${oc.app.waitlistSweepIntervalMs:60000}")
+    public void sweep() {
+        try {
+            this.pendingSessions.addAll(this.waitlistRepository.findPromotableSessions());
+        } catch (DataAccessException e) {
+            logger.error("Cannot look for promotable waitlists", e);
+        }
+    }
+
+    /**
+     * Moves as many users from the head of the queue to the session as there are free seats,
+     * with a fixed number of statements whatever the batch size.
+     *
+     * @return the number of promoted users
+     */
+    int promote(Long sessionId) {
+        Integer promoted = this.transactionTemplate.execute(status -> {
+            int freeSeats = this.waitlistRepository.lockFreeSeats(sessionId);
+            if (freeSeats == 0) {
+                return 0;
+            }
+
+            this.waitlistRepository.deleteParticipants(sessionId);
+            List<Long> userIds = this.waitlistRepository.findHead(sessionId, Math.min(freeSeats, this.batchSize));
+            if (userIds.isEmpty()) {
+                return 0;
+            }
+
+            this.participationRepository.insertAll(sessionId, userIds);
+            this.waitlistRepository.deleteAll(sessionId, userIds);
+            this.sessionCache.evict(sessionId);
+            return userIds.size();
+        });
+        return promoted != null ? promoted : 0;
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.TestPropertySource;
@@ -57,6 +58,27 @@ public class AuthControllerIntegrationTest {
             .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    public void testLogout_Repeated() throws Exception {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("user1@studio.com");
+        loginRequest.setPassword("password");
+
+        String loginResponse = mockMvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(new ObjectMapper().writeValueAsString(loginRequest)))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String token = new ObjectMapper().readTree(loginResponse).get("token").asText();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/auth/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", is("Logged out successfully!")));
+        }
+    }
+
     @Test
     public void testRegister_Success() throws Exception {
         SignupRequest signupRequest = new SignupRequest();
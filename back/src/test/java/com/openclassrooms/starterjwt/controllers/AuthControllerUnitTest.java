@@ -16,17 +16,25 @@ import org.springframework.security.core.Authentication;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import com.openclassrooms.starterjwt.exception.InvalidRefreshTokenException;
+import com.openclassrooms.starterjwt.exception.PasswordHashingUnavailableException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
+import com.openclassrooms.starterjwt.payload.request.TokenRefreshRequest;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.RefreshTokenService;
+import com.openclassrooms.starterjwt.security.services.TokenRevocationService;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import java.util.Optional;
@@ -56,6 +64,12 @@ public class AuthControllerUnitTest {
     @MockBean
     private UserDetailsImpl userDetails;
 
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
     @Test
     public void testAuthenticateUser() throws Exception {
         User user = new User(
@@ -85,13 +99,16 @@ public class AuthControllerUnitTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(auth);
         when(jwtUtils.generateJwtToken(auth)).thenReturn("JWTToken");
         when(auth.getPrincipal()).thenReturn(userDetails);
+        when(refreshTokenService.create(1L)).thenReturn("refreshToken");
 
         mockMvc.perform(post("/api/auth/login")
             .contentType("application/json")
             .content(jsonRequest))
-            .andExpect(status().isOk());
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.admin").value(true))
+            .andExpect(jsonPath("$.refreshToken").value("refreshToken"));
 
-        verify(userRepository).findByEmail("user@studio.com");
+        verify(userRepository, never()).findByEmail(anyString());
         assertTrue(user.isAdmin());
 
         verify(authenticationManager).authenticate(new UsernamePasswordAuthenticationToken("user@studio.com", "test!1234"));
@@ -137,4 +154,62 @@ public class AuthControllerUnitTest {
             .andExpect(status().isBadRequest())
             .andExpect(content().string("{\"message\":\"Error: Email is already taken!\"}"));
     }
+
+    @Test
+    public void testAuthenticateUser_PasswordHashingSaturated() throws Exception {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("user@studio.com");
+        loginRequest.setPassword("test!1234");
+        String jsonRequest = new ObjectMapper().writeValueAsString(loginRequest);
+
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+            .thenThrow(new PasswordHashingUnavailableException(2));
+
+        mockMvc.perform(post("/api/auth/login")
+            .contentType("application/json")
+            .content(jsonRequest))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "2"));
+    }
+
+    @Test
+    public void testRefreshToken() throws Exception {
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "user@studio.com", "User", "Studio", false, null);
+        TokenRefreshRequest refreshRequest = new TokenRefreshRequest();
+        refreshRequest.setRefreshToken("oldRefreshToken");
+
+        when(refreshTokenService.rotate("oldRefreshToken"))
+            .thenReturn(new RefreshTokenService.Rotation(principal, "newRefreshToken"));
+        when(jwtUtils.generateJwtToken(principal)).thenReturn("JWTToken");
+
+        mockMvc.perform(post("/api/auth/refresh")
+            .contentType("application/json")
+            .content(new ObjectMapper().writeValueAsString(refreshRequest)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.token").value("JWTToken"))
+            .andExpect(jsonPath("$.refreshToken").value("newRefreshToken"));
+
+        verify(authenticationManager, never()).authenticate(any());
+    }
+
+    @Test
+    public void testRefreshToken_Invalid() throws Exception {
+        TokenRefreshRequest refreshRequest = new TokenRefreshRequest();
+        refreshRequest.setRefreshToken("unknown");
+
+        when(refreshTokenService.rotate("unknown")).thenThrow(new InvalidRefreshTokenException());
+
+        mockMvc.perform(post("/api/auth/refresh")
+            .contentType("application/json")
+            .content(new ObjectMapper().writeValueAsString(refreshRequest)))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void testLogout_MissingBearerToken() throws Exception {
+        mockMvc.perform(post("/api/auth/logout"))
+            .andExpect(status().isBadRequest());
+
+        verify(tokenRevocationService, never()).revoke(anyString(), any(Long.class));
+    }
 }
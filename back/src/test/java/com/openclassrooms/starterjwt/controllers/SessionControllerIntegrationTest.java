@@ -9,6 +9,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 
 import java.util.Date;
@@ -20,6 +21,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.dto.SessionDto;
@@ -66,6 +68,22 @@ public class SessionControllerIntegrationTest {
             .andExpect(jsonPath("$", not(empty())));
     }
     
+    @Test
+    @WithMockUser
+    public void testFindAll_PagedByDateThenId() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/api/session").param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].description", is("Yoga session 1")))
+            .andExpect(jsonPath("$.nextCursor", notNullValue()))
+            .andReturn();
+
+        String cursor = new ObjectMapper().readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/session").param("size", "1").param("cursor", cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].description", is("Yoga session 2")));
+    }
+
     @Test
     @WithMockUser
     public void testCreate() throws Exception {
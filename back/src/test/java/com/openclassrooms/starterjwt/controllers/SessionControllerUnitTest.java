@@ -6,16 +6,24 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 
@@ -25,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -38,17 +47,27 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.UnknownReferenceException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.BulkParticipationRequest;
+import com.openclassrooms.starterjwt.payload.response.BulkParticipationReport;
+import com.openclassrooms.starterjwt.payload.response.WaitlistPositionResponse;
+import com.openclassrooms.starterjwt.repository.SessionVersion;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.BulkParticipationService;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.WaitlistService;
 
 
 @SpringBootTest
@@ -67,6 +86,12 @@ public class SessionControllerUnitTest {
     @MockBean
     private SessionMapper sessionMapper;
 
+    @MockBean
+    private WaitlistService waitlistService;
+
+    @MockBean
+    private BulkParticipationService bulkParticipationService;
+
     private Session session;
     private SessionDto sessionDto;
     private ObjectMapper mapper;
@@ -108,27 +133,115 @@ public class SessionControllerUnitTest {
     @Test
     @WithMockUser
     public void testFindById_Unit_Success() throws Exception {
-        when(sessionService.getById(1L)).thenReturn(session);
-        when(sessionMapper.toDto(session)).thenReturn(sessionDto);
+        when(sessionService.findDtoById(1L)).thenReturn(sessionDto);
 
         mockMvc.perform(get("/api/session/{id}", 1L))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON))
             .andExpect(jsonPath("$.id", is(1)));
+
+        verify(sessionMapper, never()).toDto(any(Session.class));
+        verify(sessionService, never()).getById(anyLong());
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindById_IncludeUsers() throws Exception {
+        sessionDto.setUsers(Arrays.asList(2L, 3L));
+        when(sessionService.getById(1L)).thenReturn(session);
+        when(sessionMapper.toDto(session)).thenReturn(sessionDto);
+
+        mockMvc.perform(get("/api/session/{id}", 1L).param("include", "users"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.users", hasSize(2)));
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindById_NotModified() throws Exception {
+        sessionDto.setUpdatedAt(LocalDateTime.of(2026, 1, 6, 18, 0));
+        sessionDto.setParticipantCount(2);
+        when(sessionService.findDtoById(1L)).thenReturn(sessionDto);
+        SessionVersion version = mock(SessionVersion.class);
+        when(version.getCount()).thenReturn(1L);
+        when(version.getParticipantCount()).thenReturn(2L);
+        when(version.getUpdatedAt()).thenReturn(LocalDateTime.of(2026, 1, 6, 18, 0));
+        when(sessionService.findVersion(1L)).thenReturn(version);
+        when(sessionService.getById(1L)).thenReturn(session);
+        when(sessionMapper.toDto(session)).thenReturn(sessionDto);
+
+        String etag = mockMvc.perform(get("/api/session/{id}", 1L))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/session/{id}", 1L).header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", etag));
+        // The participant ids make a different representation, with its own tag.
+        mockMvc.perform(get("/api/session/{id}", 1L).param("include", "users").header("If-None-Match", etag))
+            .andExpect(status().isOk());
+
+        verify(sessionService, times(2)).findDtoById(1L);
+        verify(sessionService, times(1)).getById(1L);
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindById_BookingWithinTheSameMillisecondChangesTheTag() throws Exception {
+        sessionDto.setUpdatedAt(LocalDateTime.of(2026, 1, 6, 18, 0));
+        sessionDto.setParticipantCount(2);
+        when(sessionService.findDtoById(1L)).thenReturn(sessionDto);
+
+        String etag = mockMvc.perform(get("/api/session/{id}", 1L))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        sessionDto.setParticipantCount(3);
+        mockMvc.perform(get("/api/session/{id}", 1L).header("If-None-Match", etag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindById_IncludeUsersOfMissingSession() throws Exception {
+        SessionVersion version = mock(SessionVersion.class);
+        when(version.getCount()).thenReturn(0L);
+        when(sessionService.findVersion(1L)).thenReturn(version);
+
+        mockMvc.perform(get("/api/session/{id}", 1L).param("include", "users"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindAll_NotModified() throws Exception {
+        SessionVersion version = mock(SessionVersion.class);
+        when(version.getCount()).thenReturn(2L);
+        when(version.getUpdatedAt()).thenReturn(LocalDateTime.of(2026, 1, 6, 18, 0));
+        when(sessionService.findVersion()).thenReturn(version);
+
+        String etag = mockMvc.perform(get("/api/session"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/session").header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+
+        verify(sessionService, times(1)).findAllSummaries(false);
     }
 
     @Test
     public void testFindById_SessionNotFound() {
-        when(sessionService.getById(anyLong())).thenReturn(null);
+        when(sessionService.findDtoById(anyLong())).thenThrow(new NotFoundException());
 
-        ResponseEntity<?> response = sessionController.findById("1");
+        ResponseEntity<?> response = sessionController.findById("1", null, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
     
     @Test
     public void testFindById_NumberFormatException() {
-        ResponseEntity<?> response = sessionController.findById("notANumber");
+        ResponseEntity<?> response = sessionController.findById("notANumber", null, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -150,8 +263,7 @@ public class SessionControllerUnitTest {
                 return dto;
             }).collect(Collectors.toList());
 
-        when(sessionService.findAll()).thenReturn(sessions);
-        when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
+        when(sessionService.findAllSummaries(false)).thenReturn(sessionDtos);
 
         mockMvc.perform(get("/api/session"))
             .andExpect(status().isOk())
@@ -160,8 +272,40 @@ public class SessionControllerUnitTest {
             .andExpect(jsonPath("$[0].id", is(1)))
             .andExpect(jsonPath("$[1].id", is(2)));
 
-        verify(sessionService, times(1)).findAll();
-        verify(sessionMapper, times(1)).toDto(sessions);
+        verify(sessionService, times(1)).findAllSummaries(false);
+        verify(sessionMapper, times(0)).toDto(sessions);
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindAll_Paged() throws Exception {
+        SessionDto dto = new SessionDto();
+        dto.setId(1L);
+
+        when(sessionService.findPage("abc", 1, null, null, 2L, false)).thenReturn(new SessionService.Page(Arrays.asList(dto), "next"));
+
+        mockMvc.perform(get("/api/session").param("cursor", "abc").param("size", "1").param("teacherId", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items", hasSize(1)))
+            .andExpect(jsonPath("$.items[0].id", is(1)))
+            .andExpect(jsonPath("$.nextCursor", is("next")));
+
+        verify(sessionService, times(0)).findAllSummaries(anyBoolean());
+    }
+
+    @Test
+    @WithMockUser
+    public void testCreate_UnknownParticipant() throws Exception {
+        initializeDto();
+
+        when(sessionMapper.toEntity(any(SessionDto.class)))
+            .thenThrow(new UnknownReferenceException("user", Arrays.asList(42L)));
+
+        mockMvc.perform(post("/api/session")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(mapper.writeValueAsString(sessionDto)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message", is("Error: Unknown user ids: [42]")));
     }
 
     @Test
@@ -261,7 +405,7 @@ public class SessionControllerUnitTest {
         String id = "notANumber";
         String userId = "1";
 
-        SessionController controller = new SessionController(sessionService, sessionMapper);
+        SessionController controller = new SessionController(sessionService, sessionMapper, waitlistService, bulkParticipationService, null, null);
 
         doThrow(NumberFormatException.class).when(sessionService).participate(anyLong(), anyLong());
 
@@ -293,4 +437,135 @@ public class SessionControllerUnitTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
+    @Test
+    @WithMockUser
+    public void testJoinWaitlist() throws Exception {
+        when(waitlistService.join(1L, 2L)).thenReturn(new WaitlistPositionResponse(1L, 2L, 3, false));
+
+        mockMvc.perform(post("/api/session/{id}/waitlist/{userId}", 1L, 2L))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.position", is(3)))
+            .andExpect(jsonPath("$.participating", is(false)));
+    }
+
+    @Test
+    @WithMockUser
+    public void testWaitlistPosition_Promoted() throws Exception {
+        when(waitlistService.getPosition(1L, 2L)).thenReturn(new WaitlistPositionResponse(1L, 2L, null, true));
+
+        mockMvc.perform(get("/api/session/{id}/waitlist/{userId}", 1L, 2L))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.participating", is(true)));
+    }
+
+    @Test
+    @WithMockUser
+    public void testWaitlistPosition_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/session/{id}/waitlist/{userId}", "notANumber", 2L))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindParticipants() throws Exception {
+        User participant = new User(2L, "user1@studio.com", "Studio", "User1", "password", false, null, null);
+        when(sessionService.findParticipants(1L, null, 1))
+            .thenReturn(new SessionService.ParticipantPage(Arrays.asList(participant), "next"));
+
+        mockMvc.perform(get("/api/session/{id}/participants", 1L).param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items", hasSize(1)))
+            .andExpect(jsonPath("$.items[0].email", is("user1@studio.com")))
+            .andExpect(jsonPath("$.items[0].password").doesNotExist())
+            .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    @WithMockUser
+    public void testSearch() throws Exception {
+        when(sessionService.search("vinyasa", null)).thenReturn(Arrays.asList(session));
+        when(sessionMapper.toDtoWithoutUsers(session)).thenReturn(sessionDto);
+
+        mockMvc.perform(get("/api/session/search").param("q", "vinyasa"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id", is(1)));
+    }
+
+    private String bulkRequest() throws Exception {
+        BulkParticipationRequest request = new BulkParticipationRequest();
+        request.setParticipations(Arrays.asList(
+            new BulkParticipationRequest.Participation(1L, 2L),
+            new BulkParticipationRequest.Participation(1L, 3L)));
+        return mapper.writeValueAsString(request);
+    }
+
+    @Test
+    public void testParticipateAll_Admin() throws Exception {
+        UserDetailsImpl admin = new UserDetailsImpl(1L, "yoga@studio.com", "Admin", "Admin", true, null);
+        BulkParticipationReport report = new BulkParticipationReport();
+        report.add(new BulkParticipationReport.Row(1L, 2L, BulkParticipationReport.Status.ENROLLED));
+        report.add(new BulkParticipationReport.Row(1L, 3L, BulkParticipationReport.Status.SESSION_FULL));
+        when(bulkParticipationService.enroll(any())).thenReturn(report);
+
+        mockMvc.perform(post("/api/session/participate")
+            .with(user(admin))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(bulkRequest()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.enrolled", is(1)))
+            .andExpect(jsonPath("$.rejected", is(1)))
+            .andExpect(jsonPath("$.rows[1].status", is("SESSION_FULL")));
+    }
+
+    @Test
+    public void testParticipateAll_Forbidden() throws Exception {
+        UserDetailsImpl member = new UserDetailsImpl(2L, "user@studio.com", "User", "Studio", false, null);
+
+        mockMvc.perform(post("/api/session/participate")
+            .with(user(member))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(bulkRequest()))
+            .andExpect(status().isForbidden());
+
+        verify(bulkParticipationService, never()).enroll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExport_Admin() throws Exception {
+        UserDetailsImpl admin = new UserDetailsImpl(1L, "yoga@studio.com", "Admin", "Admin", true, null);
+        Session session2 = new Session();
+        session2.setId(2L);
+        SessionDto sessionDto2 = new SessionDto();
+        sessionDto2.setId(2L);
+        doAnswer(invocation -> {
+            Consumer<Session> consumer = invocation.getArgument(0);
+            consumer.accept(session);
+            consumer.accept(session2);
+            return null;
+        }).when(sessionService).forEachSession(any());
+        when(sessionMapper.toDtoWithoutUsers(session)).thenReturn(sessionDto);
+        when(sessionMapper.toDtoWithoutUsers(session2)).thenReturn(sessionDto2);
+
+        MvcResult result = mockMvc.perform(get("/api/session/export").with(user(admin)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertEquals(1800000L, result.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[1].id", is(2)));
+    }
+
+    @Test
+    public void testExport_Forbidden() throws Exception {
+        UserDetailsImpl member = new UserDetailsImpl(2L, "user@studio.com", "User", "Studio", false, null);
+
+        mockMvc.perform(get("/api/session/export").with(user(member)))
+            .andExpect(status().isForbidden());
+
+        verify(sessionService, never()).forEachSession(any());
+    }
 }
@@ -0,0 +1,129 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SessionSeriesControllerUnitTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SessionSeriesService sessionSeriesService;
+
+    @MockBean
+    private SessionSeriesMapper sessionSeriesMapper;
+
+    private SessionSeries series;
+    private SessionSeriesDto seriesDto;
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void setup() {
+        series = new SessionSeries();
+        series.setId(1L);
+        seriesDto = new SessionSeriesDto(1L, "Vinyasa flow", 1L, "Every Tuesday", 20, "FREQ=WEEKLY;BYDAY=TU",
+                LocalDateTime.of(2026, 1, 6, 18, 0), LocalDate.of(2026, 6, 30), null, null, null, null);
+        mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindById() throws Exception {
+        when(sessionSeriesService.getById(1L)).thenReturn(series);
+        when(sessionSeriesMapper.toDto(series)).thenReturn(seriesDto);
+
+        mockMvc.perform(get("/api/series/1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.recurrence", is("FREQ=WEEKLY;BYDAY=TU")))
+            .andExpect(jsonPath("$.end", is("2026-06-30")));
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindByIdNotFound() throws Exception {
+        mockMvc.perform(get("/api/series/2"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    public void testFindByIdBadRequest() throws Exception {
+        mockMvc.perform(get("/api/series/abc"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    public void testCreate() throws Exception {
+        when(sessionSeriesMapper.toEntity(any(SessionSeriesDto.class))).thenReturn(series);
+        when(sessionSeriesService.create(series)).thenReturn(series);
+        when(sessionSeriesMapper.toDto(series)).thenReturn(seriesDto);
+
+        mockMvc.perform(post("/api/series")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(seriesDto)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id", is(1)));
+    }
+
+    @Test
+    @WithMockUser
+    public void testCreateWithoutRecurrence() throws Exception {
+        seriesDto.setRecurrence(null);
+
+        mockMvc.perform(post("/api/series")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(seriesDto)))
+            .andExpect(status().isBadRequest());
+        verify(sessionSeriesService, never()).create(any());
+    }
+
+    @Test
+    @WithMockUser
+    public void testUpdate() throws Exception {
+        when(sessionSeriesMapper.toEntity(any(SessionSeriesDto.class))).thenReturn(series);
+        when(sessionSeriesService.update(eq(1L), any(SessionSeries.class))).thenReturn(series);
+        when(sessionSeriesMapper.toDto(series)).thenReturn(seriesDto);
+
+        mockMvc.perform(put("/api/series/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(seriesDto)))
+            .andExpect(status().isOk());
+        verify(sessionSeriesService).update(eq(1L), any(SessionSeries.class));
+    }
+}
@@ -1,14 +1,21 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
@@ -24,6 +31,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import com.openclassrooms.starterjwt.dto.TeacherDto;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.Version;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.services.TeacherService;
 
 @SpringBootTest
@@ -94,4 +103,62 @@ public class TeacherControllerUnitTest {
 
         verify(teacherService, times(1)).findAll();
     }
+
+    @Test
+    @WithMockUser
+    public void testFindById_NotModified() throws Exception {
+        when(teacherService.findUpdatedAt(1L)).thenReturn(LocalDateTime.of(2026, 1, 6, 18, 0));
+
+        String etag = mockMvc.perform(get("/api/teacher/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", containsString("no-cache")))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/teacher/1").header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+
+        verify(teacherService, times(1)).findById(1L);
+    }
+
+    @Test
+    @WithMockUser
+    public void testGetAllTeachers_NotModified() throws Exception {
+        Version version = mock(Version.class);
+        when(version.getCount()).thenReturn(2L);
+        when(version.getUpdatedAt()).thenReturn(LocalDateTime.of(2026, 1, 6, 18, 0));
+        when(teacherService.findVersion()).thenReturn(version);
+
+        String etag = mockMvc.perform(get("/api/teacher"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/teacher").header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+
+        when(version.getCount()).thenReturn(3L);
+        mockMvc.perform(get("/api/teacher").header("If-None-Match", etag))
+            .andExpect(status().isOk());
+
+        verify(teacherService, times(2)).findAll();
+    }
+
+    @Test
+    public void testReload_Admin() throws Exception {
+        UserDetailsImpl admin = new UserDetailsImpl(1L, "yoga@studio.com", "Admin", "Admin", true, null);
+
+        mockMvc.perform(post("/api/teacher/reload").with(user(admin)))
+            .andExpect(status().isOk());
+
+        verify(teacherService, times(1)).reload();
+    }
+
+    @Test
+    public void testReload_Forbidden() throws Exception {
+        UserDetailsImpl member = new UserDetailsImpl(2L, "user@studio.com", "User", "Studio", false, null);
+
+        mockMvc.perform(post("/api/teacher/reload").with(user(member)))
+            .andExpect(status().isForbidden());
+
+        verify(teacherService, never()).reload();
+    }
 }
@@ -1,30 +1,48 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.services.UserImportService;
 import com.openclassrooms.starterjwt.services.UserService;
+import com.openclassrooms.starterjwt.payload.response.UserImportReport;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.dto.UserDto;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -39,6 +57,9 @@ public class UserControllerUnitTest {
 
     @MockBean
     private UserMapper userMapper;
+
+    @MockBean
+    private UserImportService userImportService;
     private UserDto userDto;
 
     @BeforeEach
@@ -74,6 +95,17 @@ public class UserControllerUnitTest {
         verify(userService, times(1)).findById(1L);
     }
 
+    @Test
+    @WithMockUser
+    public void testFindById_NotModified() throws Exception {
+        when(userService.findUpdatedAt(1L)).thenReturn(LocalDateTime.of(2026, 1, 6, 18, 0));
+
+        mockMvc.perform(get("/api/user/1").header("If-None-Match", "W/\"user-1767722400000\""))
+        .andExpect(status().isNotModified());
+
+        verify(userService, never()).findById(1L);
+    }
+
     @Test
     @WithMockUser
     public void testFindById_NumberFormatException() throws Exception {
@@ -115,4 +147,61 @@ public class UserControllerUnitTest {
         mockMvc.perform(delete("/api/user/notANumber"))
         .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testImportUsers() throws Exception {
+        UserDetailsImpl admin = new UserDetailsImpl(1L, "yoga@studio.com", "Admin", "Admin", true, null);
+        UserImportReport.Row row = new UserImportReport.Row(2, "user@studio.com", UserImportReport.Status.IMPORTED, null);
+        UserImportReport report = new UserImportReport();
+        report.add(row);
+
+        when(userImportService.importUsers(isNull(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<UserImportReport.Row>>getArgument(1).accept(row);
+            return report;
+        });
+
+        MvcResult result = mockMvc.perform(post("/api/user/import")
+            .with(user(admin))
+            .contentType("text/csv")
+            .content("email,firstName,lastName,password\nuser@studio.com,User,Studio,test!1234\n"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertEquals(1800000L, result.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(
+            "{\"line\":2,\"email\":\"user@studio.com\",\"status\":\"IMPORTED\",\"message\":null}\n"
+                + "{\"imported\":1,\"duplicates\":0,\"invalid\":0,\"total\":1}\n"));
+        verify(userImportService).open(any(), eq(UserImportService.Format.CSV));
+    }
+
+    @Test
+    public void testImportUsers_MissingColumns() throws Exception {
+        UserDetailsImpl admin = new UserDetailsImpl(1L, "yoga@studio.com", "Admin", "Admin", true, null);
+
+        when(userImportService.open(any(), eq(UserImportService.Format.CSV))).thenThrow(new BadRequestException());
+
+        mockMvc.perform(post("/api/user/import")
+            .with(user(admin))
+            .contentType("text/csv")
+            .content("email,password\n"))
+        .andExpect(status().isBadRequest());
+
+        verify(userImportService, never()).importUsers(any(UserImportService.Source.class), any());
+    }
+
+    @Test
+    public void testImportUsers_Forbidden() throws Exception {
+        UserDetailsImpl member = new UserDetailsImpl(2L, "user@studio.com", "User", "Studio", false, null);
+
+        mockMvc.perform(post("/api/user/import")
+            .with(user(member))
+            .contentType("application/x-ndjson")
+            .content("{}\n"))
+        .andExpect(status().isForbidden());
+
+        verify(userImportService, never()).open(any(), any());
+    }
+}
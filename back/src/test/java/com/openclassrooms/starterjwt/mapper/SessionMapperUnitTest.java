@@ -0,0 +1,116 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.UnknownReferenceException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionMapperTest {
+
+    @InjectMocks
+    private SessionMapperImpl sessionMapper;
+
+    @Mock
+    private TeacherService teacherService;
+
+    @Mock
+    private UserService userService;
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static SessionDto sessionDto(Long... userIds) {
+        return new SessionDto(null, "Yoga", new Date(), 1L, "Yoga session", Arrays.asList(userIds), null, null, null, null);
+    }
+
+    @Test
+    @DisplayName("Resolve all participants with one query")
+    void shouldResolveUsersInOneQueryWhenToEntityIsCalled() {
+        Teacher teacher = new Teacher();
+        teacher.setId(1L);
+        when(teacherService.findById(1L)).thenReturn(teacher);
+        when(userService.findAllById(new LinkedHashSet<>(Arrays.asList(3L, 1L, 2L))))
+            .thenReturn(Arrays.asList(user(1L), user(2L), user(3L)));
+
+        Session session = sessionMapper.toEntity(sessionDto(3L, 1L, 2L, 1L));
+
+        assertEquals(teacher, session.getTeacher());
+        assertEquals(Arrays.asList(3L, 1L, 2L), session.getUsers().stream().map(User::getId).collect(Collectors.toList()));
+        verify(userService, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Report unknown participants")
+    void shouldThrowUnknownReferenceWhenUserDoesNotExist() {
+        when(teacherService.findById(1L)).thenReturn(new Teacher());
+        when(userService.findAllById(new LinkedHashSet<>(Arrays.asList(1L, 9L, 8L))))
+            .thenReturn(Collections.singletonList(user(1L)));
+
+        UnknownReferenceException e = assertThrows(UnknownReferenceException.class,
+            () -> sessionMapper.toEntity(sessionDto(1L, 9L, 8L)));
+
+        assertEquals("user", e.getType());
+        assertEquals(Arrays.asList(9L, 8L), e.getIds());
+    }
+
+    @Test
+    @DisplayName("Report unknown teacher")
+    void shouldThrowUnknownReferenceWhenTeacherDoesNotExist() {
+        when(teacherService.findById(1L)).thenReturn(null);
+
+        assertThrows(UnknownReferenceException.class, () -> sessionMapper.toEntity(sessionDto()));
+    }
+
+    @Test
+    @DisplayName("No participants, no query")
+    void shouldNotQueryUsersWhenThereAreNoParticipants() {
+        when(teacherService.findById(1L)).thenReturn(new Teacher());
+
+        Session session = sessionMapper.toEntity(sessionDto());
+
+        assertTrue(session.getUsers().isEmpty());
+        verify(userService, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Missing participant list stays missing")
+    void shouldKeepUsersNullWhenDtoHasNoParticipantList() {
+        when(teacherService.findById(1L)).thenReturn(new Teacher());
+        SessionDto dto = sessionDto();
+        dto.setUsers(null);
+
+        Session session = sessionMapper.toEntity(dto);
+
+        assertNull(session.getUsers());
+        verify(userService, never()).findAllById(any());
+    }
+}
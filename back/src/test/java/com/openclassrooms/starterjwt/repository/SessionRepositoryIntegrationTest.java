@@ -0,0 +1,185 @@
+package com.openclassrooms.starterjwt.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+
+@SpringBootTest
+@Transactional
+@TestPropertySource(locations = "classpath:application-test.properties",
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class SessionRepositoryIntegrationTest {
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long statementsToList(Integer limit, boolean includeUsers) {
+        entityManager.clear();
+        statistics.clear();
+
+        List<SessionDto> sessions = sessionRepository.findSummaries(null, null, null, null, null, limit, includeUsers);
+
+        assertTrue(sessions.stream().allMatch(session -> session.getTeacher_id() != null));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addSessions(int count) {
+        Teacher teacher = teacherRepository.findAll().get(0);
+        List<User> users = userRepository.findAll();
+
+        for (int i = 0; i < count; i++) {
+            sessionRepository.save(Session.builder()
+                .name("Session " + i)
+                .date(new Date())
+                .description("Statement count")
+                .teacher(teacher)
+                .users(new ArrayList<>(users))
+                .participantCount(users.size())
+                .build());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    public void testListingRunsTwoStatementsRegardlessOfSize() {
+        assertEquals(2, statementsToList(null, true));
+
+        addSessions(25);
+
+        assertEquals(2, statementsToList(null, true));
+        assertEquals(2, statementsToList(10, true));
+    }
+
+    @Test
+    public void testListingWithoutParticipantsRunsOneStatement() {
+        addSessions(25);
+
+        assertEquals(1, statementsToList(null, false));
+        assertEquals(1, statementsToList(10, false));
+    }
+
+    @Test
+    public void testListingReturnsParticipantCountWithoutIds() {
+        addSessions(1);
+        int participants = userRepository.findAll().size();
+        entityManager.clear();
+
+        List<SessionDto> sessions = sessionRepository.findSummaries(null, null, null, null, null, null, false);
+
+        SessionDto last = sessions.get(sessions.size() - 1);
+        assertEquals(participants, last.getParticipantCount());
+        assertNull(last.getUsers());
+    }
+
+    @Test
+    public void testParticipantsArePagedById() {
+        addSessions(1);
+        List<SessionDto> sessions = sessionRepository.findSummaries(null, null, null, null, null, null, false);
+        Long sessionId = sessions.get(sessions.size() - 1).getId();
+        entityManager.clear();
+
+        List<User> firstPage = sessionRepository.findParticipants(sessionId, null, PageRequest.of(0, 1));
+        List<User> secondPage = sessionRepository.findParticipants(sessionId, firstPage.get(0).getId(), PageRequest.of(0, 1));
+
+        assertEquals(1, firstPage.size());
+        assertTrue(secondPage.get(0).getId() > firstPage.get(0).getId());
+    }
+
+    @Test
+    public void testListingReturnsParticipantIds() {
+        addSessions(1);
+        int participants = userRepository.findAll().size();
+        entityManager.clear();
+
+        List<SessionDto> sessions = sessionRepository.findSummaries(null, null, null, null, null, null, true);
+
+        assertEquals(participants, sessions.get(sessions.size() - 1).getUsers().size());
+    }
+
+    @Test
+    public void testFiltersByTeacherAndDateRange() {
+        List<Teacher> teachers = teacherRepository.findAll();
+        Date weekStart = new Date(1893456000000L);
+        long day = 24L * 3600 * 1000;
+        for (int i = 0; i < 14; i++) {
+            for (Teacher teacher : teachers) {
+                sessionRepository.save(Session.builder()
+                    .name("Day " + i)
+                    .date(new Date(weekStart.getTime() + i * day))
+                    .description("Weekly filter")
+                    .teacher(teacher)
+                    .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Long teacherId = teachers.get(0).getId();
+
+        List<SessionDto> week = sessionRepository.findSummaries(
+            teacherId, weekStart, new Date(weekStart.getTime() + 7 * day), null, null, null, false);
+
+        assertEquals(7, week.size());
+        assertTrue(week.stream().allMatch(session -> teacherId.equals(session.getTeacher_id())));
+        assertTrue(week.stream().allMatch(session -> session.getDate().getTime() < weekStart.getTime() + 7 * day));
+    }
+
+    @Test
+    public void testSearchableTextVersionIgnoresBookings() {
+        addSessions(1);
+        entityManager.flush();
+        Long id = sessionRepository.findAll().get(0).getId();
+        String version = sessionRepository.findSearchableTextVersion();
+
+        jdbcTemplate.update("UPDATE SESSIONS SET participant_count = participant_count + 1 WHERE id = ?", id);
+        assertEquals(version, sessionRepository.findSearchableTextVersion());
+
+        jdbcTemplate.update("UPDATE SESSIONS SET name = 'Renamed' WHERE id = ?", id);
+        assertNotEquals(version, sessionRepository.findSearchableTextVersion());
+    }
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AuthEntryPointJwtUnitTest {
+
+    private MeterRegistry meterRegistry;
+
+    private AuthEntryPointJwt authEntryPointJwt;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        authEntryPointJwt = new AuthEntryPointJwt(meterRegistry, 1);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("auth.rejected").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    public void testCommence() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session");
+        request.setServletPath("/api/session");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        authEntryPointJwt.commence(request, response, new InsufficientAuthenticationException("Full authentication is required"));
+
+        assertEquals(401, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        JsonNode body = new ObjectMapper().readTree(response.getContentAsByteArray());
+        assertEquals(401, body.get("status").asInt());
+        assertEquals("Unauthorized", body.get("error").asText());
+        assertEquals("Full authentication is required", body.get("message").asText());
+        assertEquals("/api/session", body.get("path").asText());
+        assertEquals(1.0, rejected("missing"));
+    }
+
+    @Test
+    public void testCommence_CountsReasonFromFilter() throws Exception {
+        for (AuthRejectionReason reason : new AuthRejectionReason[] {
+            AuthRejectionReason.EXPIRED, AuthRejectionReason.EXPIRED, AuthRejectionReason.BAD_SIGNATURE }) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session");
+            request.setAttribute(AuthRejectionReason.ATTRIBUTE, reason);
+
+            authEntryPointJwt.commence(request, new MockHttpServletResponse(), new InsufficientAuthenticationException("denied"));
+        }
+
+        assertEquals(2.0, rejected("expired"));
+        assertEquals(1.0, rejected("bad_signature"));
+        assertEquals(0.0, rejected("missing"));
+    }
+
+    @Test
+    public void testLogThrottle() {
+        LogThrottle throttle = new LogThrottle(2);
+
+        assertEquals(0, throttle.tryAcquire());
+        assertEquals(0, throttle.tryAcquire());
+        assertEquals(-1, throttle.tryAcquire());
+        assertEquals(-1, throttle.tryAcquire());
+    }
+}
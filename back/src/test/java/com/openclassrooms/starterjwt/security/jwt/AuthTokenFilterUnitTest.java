@@ -9,8 +9,13 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.DeletedUserRegistry;
+import com.openclassrooms.starterjwt.security.services.TokenRevocationService;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 import javax.servlet.FilterChain;
 import javax.servlet.http.HttpServletRequest;
@@ -27,7 +32,21 @@ public class AuthTokenFilterUnitTest {
     JwtUtils jwtUtils;
 
     @Mock
-    UserDetailsService userDetailsService;
+    UserDetailsServiceImpl userDetailsService;
+
+    SecurityContext securityContext;
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    DeletedUserRegistry deletedUserRegistry;
+
+    @Mock
+    TokenRevocationService tokenRevocationService;
 
     @Mock
     HttpServletRequest request;
@@ -41,15 +60,22 @@ public class AuthTokenFilterUnitTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        SecurityContext securityContext = Mockito.mock(SecurityContext.class);
+        securityContext = Mockito.mock(SecurityContext.class);
         SecurityContextHolder.setContext(securityContext);
     }
 
+    private JwtClaims legacyClaims(String username) {
+        return new JwtClaims(username, null, null, null, false, Long.MAX_VALUE);
+    }
+
+    private JwtClaims principalClaims(String username) {
+        return new JwtClaims(username, 1L, "User", "Studio", false, Long.MAX_VALUE);
+    }
+
     @Test
     public void testDoFilterInternal() throws Exception {
         when(request.getHeader("Authorization")).thenReturn("Bearer token");
-        when(jwtUtils.validateJwtToken(anyString())).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(anyString())).thenReturn("username");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.valid(legacyClaims("username")));
         UserDetails userDetails = mock(UserDetails.class);
         when(userDetailsService.loadUserByUsername(anyString())).thenReturn(userDetails);
 
@@ -79,22 +105,155 @@ public class AuthTokenFilterUnitTest {
     @Test
     public void testDoFilterInternal_InvalidJwtToken() throws Exception {
         when(request.getHeader("Authorization")).thenReturn("Bearer token");
-        when(jwtUtils.validateJwtToken(anyString())).thenReturn(false);
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.failed(JwtFailureReason.MALFORMED));
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    public void testDoFilterInternal_ExpiredJwtTokenRecordsReason() throws Exception {
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.failed(JwtFailureReason.EXPIRED));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
+        verify(request).setAttribute(AuthRejectionReason.ATTRIBUTE, AuthRejectionReason.EXPIRED);
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
     @Test
     public void testDoFilterInternal_ExceptionWhenLoadingUserByUsername() throws Exception {
         when(request.getHeader("Authorization")).thenReturn("Bearer token");
-        when(jwtUtils.validateJwtToken(anyString())).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(anyString())).thenReturn("username");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.valid(legacyClaims("username")));
         when(userDetailsService.loadUserByUsername(anyString())).thenThrow(new UsernameNotFoundException("User not found"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain, times(1)).doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDoFilterInternal_RevokedToken() throws Exception {
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(tokenRevocationService.isRevoked("token")).thenReturn(true);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(request).setAttribute(AuthRejectionReason.ATTRIBUTE, AuthRejectionReason.REVOKED);
+        verify(jwtUtils, never()).verify(anyString());
+        verify(verifiedTokenCache, never()).get(anyString());
+        verify(securityContext, never()).setAuthentication(any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    public void testDoFilterInternal_PrincipalFromClaims() throws Exception {
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.valid(principalClaims("user@studio.com")));
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(securityContext).setAuthentication(any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    public void testDoFilterInternal_RevalidatesClaimsAgainstDatabase() throws Exception {
+        ReflectionTestUtils.setField(authTokenFilter, "jwtRevalidateSeconds", 60L);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.valid(principalClaims("user@studio.com")));
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(userRepository, times(1)).existsById(1L);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(securityContext, times(2)).setAuthentication(any());
+    }
+
+    @Test
+    public void testDoFilterInternal_RevalidationRejectsDeletedUser() throws Exception {
+        ReflectionTestUtils.setField(authTokenFilter, "jwtRevalidateSeconds", 60L);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.valid(principalClaims("user@studio.com")));
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(securityContext, never()).setAuthentication(any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    public void testDoFilterInternal_FailedRevalidationIsNotRemembered() throws Exception {
+        ReflectionTestUtils.setField(authTokenFilter, "jwtRevalidateSeconds", 60L);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.valid(principalClaims("user@studio.com")));
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(userRepository, times(2)).existsById(1L);
+        verify(securityContext, never()).setAuthentication(any());
+    }
+
+    @Test
+    public void testDoFilterInternal_RevalidationBypassesUserDetailsCache() throws Exception {
+        ReflectionTestUtils.setField(authTokenFilter, "jwtRevalidateSeconds", 60L);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.valid(principalClaims("user@studio.com")));
+        // The cached principal is still served while the row behind it is gone.
+        when(userDetailsService.loadUserByUsername("user@studio.com")).thenReturn(mock(UserDetails.class));
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(request).setAttribute(AuthRejectionReason.ATTRIBUTE, AuthRejectionReason.UNKNOWN_USER);
+        verify(securityContext, never()).setAuthentication(any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    public void testDoFilterInternal_CachedTokenSkipsVerification() throws Exception {
+        UserDetails userDetails = mock(UserDetails.class);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(verifiedTokenCache.isEnabled()).thenReturn(true);
+        when(verifiedTokenCache.digest("token")).thenReturn("digest");
+        when(verifiedTokenCache.get("digest")).thenReturn(userDetails);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(jwtUtils, never()).verify(anyString());
+        verify(securityContext).setAuthentication(any());
+    }
+
+    @Test
+    public void testDoFilterInternal_VerifiedTokenIsCachedUntilExpiry() throws Exception {
+        JwtClaims claims = new JwtClaims("user@studio.com", 1L, "User", "Studio", false, 123456789L);
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(verifiedTokenCache.isEnabled()).thenReturn(true);
+        when(verifiedTokenCache.digest("token")).thenReturn("digest");
+        when(jwtUtils.verify("token")).thenReturn(JwtVerification.valid(claims));
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(verifiedTokenCache).put(eq("digest"), any(UserDetails.class), eq(123456789L));
+    }
+
+    @Test
+    public void testDoFilterInternal_DeletedUserIsRejected() throws Exception {
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtUtils.verify(anyString())).thenReturn(JwtVerification.valid(principalClaims("user@studio.com")));
+        when(deletedUserRegistry.isDeleted(1L)).thenReturn(true);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        verify(securityContext, never()).setAuthentication(any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+}
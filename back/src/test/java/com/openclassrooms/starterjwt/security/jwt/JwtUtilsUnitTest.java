@@ -3,18 +3,22 @@ package com.openclassrooms.starterjwt.security.jwt;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
 import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class JwtUtilsUnitTest {
 
     @Test
-    public void testGetUserNameFromJwtToken() {
+    public void testVerifyReturnsSubject() {
         JwtUtils jwtUtils = new JwtUtils();
         String jwtSecret = "testSecret";
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
@@ -25,13 +29,13 @@ public class JwtUtilsUnitTest {
             .setExpiration(new Date((new Date()).getTime() + 86400000))
             .signWith(SignatureAlgorithm.HS512, jwtSecret)
             .compact();
-        String returnedUsername = jwtUtils.getUserNameFromJwtToken(token);
+        String returnedUsername = jwtUtils.verify(token).getClaims().getSubject();
 
         assertEquals(username, returnedUsername);
     }
 
     @Test
-    public void testValidateJwtToken() {
+    public void testVerify() {
         JwtUtils jwtUtils = new JwtUtils();
         String jwtSecret = "testSecret";
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
@@ -43,15 +47,12 @@ public class JwtUtilsUnitTest {
             .signWith(SignatureAlgorithm.HS512, jwtSecret)
             .compact();
         String invalidToken = "invalidToken";
-        boolean isValid = jwtUtils.validateJwtToken(validToken);
-        boolean isInvalid = jwtUtils.validateJwtToken(invalidToken);
-
-        assertTrue(isValid);
-        assertFalse(isInvalid);
+        assertTrue(jwtUtils.verify(validToken).isValid());
+        assertFalse(jwtUtils.verify(invalidToken).isValid());
     }
     
     @Test
-    public void testValidateJwtTokenWithInvalidSignature() {
+    public void testVerifyWithInvalidSignature() {
         JwtUtils jwtUtils = new JwtUtils();
         String jwtSecret = "testSecret";
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
@@ -60,20 +61,26 @@ public class JwtUtilsUnitTest {
             .signWith(SignatureAlgorithm.HS512, "wrongSecret")
             .compact();
     
-        assertFalse(jwtUtils.validateJwtToken(invalidSignatureToken));
+        JwtVerification verification = jwtUtils.verify(invalidSignatureToken);
+
+        assertFalse(verification.isValid());
+        assertEquals(JwtFailureReason.BAD_SIGNATURE, verification.getFailureReason());
     }
     
     @Test
-    public void testValidateJwtTokenWithMalformedToken() {
+    public void testVerifyWithMalformedToken() {
         JwtUtils jwtUtils = new JwtUtils();
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "testSecret");
         String malformedToken = "malformedToken";
     
-        assertFalse(jwtUtils.validateJwtToken(malformedToken));
+        JwtVerification verification = jwtUtils.verify(malformedToken);
+
+        assertFalse(verification.isValid());
+        assertEquals(JwtFailureReason.MALFORMED, verification.getFailureReason());
     }
     
     @Test
-    public void testValidateJwtTokenWithExpiredToken() {
+    public void testVerifyWithExpiredToken() {
         JwtUtils jwtUtils = new JwtUtils();
         String jwtSecret = "testSecret";
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
@@ -83,11 +90,14 @@ public class JwtUtilsUnitTest {
             .signWith(SignatureAlgorithm.HS512, jwtSecret)
             .compact();
     
-        assertFalse(jwtUtils.validateJwtToken(expiredToken));
+        JwtVerification verification = jwtUtils.verify(expiredToken);
+
+        assertFalse(verification.isValid());
+        assertEquals(JwtFailureReason.EXPIRED, verification.getFailureReason());
     }
 
     @Test
-    public void testValidateJwtTokenWithUnsupportedToken() {
+    public void testVerifyWithUnsupportedToken() {
         JwtUtils jwtUtils = new JwtUtils();
         String jwtSecret = "testSecret";
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
@@ -95,16 +105,129 @@ public class JwtUtilsUnitTest {
             .setSubject("testUser")
             .compact();
 
-        assertFalse(jwtUtils.validateJwtToken(unsupportedToken));
+        JwtVerification verification = jwtUtils.verify(unsupportedToken);
+
+        assertFalse(verification.isValid());
+        assertEquals(JwtFailureReason.UNSUPPORTED, verification.getFailureReason());
     }
     
     @Test
-    public void testValidateJwtTokenWithEmptyClaims() {
+    public void testVerifyWithEmptyClaims() {
         JwtUtils jwtUtils = new JwtUtils();
         String jwtSecret = "testSecret";
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
         String emptyClaimsToken = "";
     
-        assertFalse(jwtUtils.validateJwtToken(emptyClaimsToken));
+        JwtVerification verification = jwtUtils.verify(emptyClaimsToken);
+
+        assertFalse(verification.isValid());
+        assertEquals(JwtFailureReason.EMPTY, verification.getFailureReason());
+    }
+
+    @Test
+    public void testGenerateJwtTokenEmbedsPrincipalClaims() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "testSecret");
+        ReflectionTestUtils.setField(jwtUtils, "jwtAccessExpirationMinutes", 15L);
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+            .id(7L)
+            .username("user@studio.com")
+            .firstName("User")
+            .lastName("Studio")
+            .admin(true)
+            .password("hash")
+            .build();
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null));
+
+        UserDetailsImpl fromClaims = jwtUtils.verify(token).getClaims().toUserDetails();
+
+        assertEquals(7L, fromClaims.getId());
+        assertEquals("user@studio.com", fromClaims.getUsername());
+        assertEquals("User", fromClaims.getFirstName());
+        assertEquals("Studio", fromClaims.getLastName());
+        assertTrue(fromClaims.getAdmin());
+        assertNull(fromClaims.getPassword());
+    }
+
+    @Test
+    public void testGenerateJwtTokenExpiresAfterTheAccessTtl() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "testSecret");
+        ReflectionTestUtils.setField(jwtUtils, "jwtAccessExpirationMinutes", 15L);
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+            .id(7L)
+            .username("user@studio.com")
+            .admin(false)
+            .build();
+        long before = System.currentTimeMillis();
+
+        String token = jwtUtils.generateJwtToken(principal);
+
+        long expirationMs = jwtUtils.verify(token).getClaims().getExpirationMs();
+        assertTrue(expirationMs > before + 15 * 60 * 1000 - 1000);
+        assertTrue(expirationMs <= System.currentTimeMillis() + 15 * 60 * 1000);
+    }
+
+    @Test
+    public void testLegacyJwtTokenHasNoUserDetails() {
+        JwtUtils jwtUtils = new JwtUtils();
+        String jwtSecret = "testSecret";
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
+        String legacyToken = Jwts.builder()
+            .setSubject("testUser")
+            .setExpiration(new Date((new Date()).getTime() + 86400000))
+            .signWith(SignatureAlgorithm.HS512, jwtSecret)
+            .compact();
+
+        assertNull(jwtUtils.verify(legacyToken).getClaims().toUserDetails());
+    }
+
+    @Test
+    public void testVerifyExtractsClaimsInOnePass() {
+        JwtUtils jwtUtils = new JwtUtils();
+        String jwtSecret = "testSecret";
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
+        Date expiration = new Date((new Date()).getTime() + 86400000);
+        String token = Jwts.builder()
+            .setSubject("user@studio.com")
+            .claim("id", 3)
+            .claim("admin", false)
+            .setExpiration(expiration)
+            .signWith(SignatureAlgorithm.HS512, jwtSecret)
+            .compact();
+
+        JwtVerification verification = jwtUtils.verify(token);
+
+        assertTrue(verification.isValid());
+        assertNull(verification.getFailureReason());
+        assertEquals("user@studio.com", verification.getClaims().getSubject());
+        assertEquals(3L, verification.getClaims().getId());
+        assertEquals(expiration.getTime() / 1000, verification.getClaims().getExpirationMs() / 1000);
+    }
+
+    @Test
+    public void testVerifyReportsFailureReasons() {
+        JwtUtils jwtUtils = new JwtUtils();
+        String jwtSecret = "testSecret";
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
+        String badSignature = Jwts.builder()
+            .setSubject("testUser")
+            .signWith(SignatureAlgorithm.HS512, "wrongSecret")
+            .compact();
+        String expired = Jwts.builder()
+            .setSubject("testUser")
+            .setExpiration(new Date(System.currentTimeMillis() - 1000))
+            .signWith(SignatureAlgorithm.HS512, jwtSecret)
+            .compact();
+        String unsigned = Jwts.builder()
+            .setSubject("testUser")
+            .compact();
+
+        assertEquals(JwtFailureReason.BAD_SIGNATURE, jwtUtils.verify(badSignature).getFailureReason());
+        assertEquals(JwtFailureReason.EXPIRED, jwtUtils.verify(expired).getFailureReason());
+        assertEquals(JwtFailureReason.UNSUPPORTED, jwtUtils.verify(unsigned).getFailureReason());
+        assertEquals(JwtFailureReason.MALFORMED, jwtUtils.verify("malformedToken").getFailureReason());
+        assertEquals(JwtFailureReason.EMPTY, jwtUtils.verify("").getFailureReason());
+        assertFalse(jwtUtils.verify(null).isValid());
     }
-}
\ No newline at end of file
+}
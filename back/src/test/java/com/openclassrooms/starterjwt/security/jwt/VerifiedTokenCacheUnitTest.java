@@ -0,0 +1,52 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class VerifiedTokenCacheUnitTest {
+
+    private final UserDetails principal = UserDetailsImpl.builder().id(1L).username("user@studio.com").build();
+
+    @Test
+    public void testDigestIsStableAndDistinct() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, new SimpleMeterRegistry());
+
+        assertEquals(cache.digest("a.b.c"), cache.digest("a.b.c"));
+        assertNotEquals(cache.digest("a.b.c"), cache.digest("a.b.d"));
+    }
+
+    @Test
+    public void testHitAndMissAreCounted() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, new SimpleMeterRegistry());
+        cache.put("digest", principal, System.currentTimeMillis() + 60000);
+
+        assertSame(principal, cache.get("digest"));
+        assertNull(cache.get("other"));
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10, new SimpleMeterRegistry());
+        cache.put("digest", principal, System.currentTimeMillis() - 1);
+
+        assertNull(cache.get("digest"));
+    }
+
+    @Test
+    public void testDisabledCacheNeverServes() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 10, new SimpleMeterRegistry());
+        cache.put("digest", principal, System.currentTimeMillis() + 60000);
+
+        assertNull(cache.get("digest"));
+    }
+}
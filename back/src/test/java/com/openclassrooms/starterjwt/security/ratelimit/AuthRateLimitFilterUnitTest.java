@@ -0,0 +1,176 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AuthRateLimitFilterUnitTest {
+
+    private AuthRateLimitFilter filter;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AuthRateLimitFilter();
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "stripes", 4);
+        ReflectionTestUtils.setField(filter, "ipCapacity", 3L);
+        ReflectionTestUtils.setField(filter, "ipRefillPerMinute", 1L);
+        ReflectionTestUtils.setField(filter, "emailCapacity", 2L);
+        ReflectionTestUtils.setField(filter, "emailRefillPerMinute", 1L);
+        ReflectionTestUtils.setField(filter, "idleSeconds", 600L);
+        ReflectionTestUtils.setField(filter, "maxKeys", 1000L);
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 4096);
+        filter.afterPropertiesSet();
+    }
+
+    private MockHttpServletRequest login(String remoteAddr, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"test!1234\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    public void testRejectsClientOverItsLimit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, perform(login("10.0.0.1", "user" + i + "@studio.com")).getStatus());
+        }
+
+        MockHttpServletResponse rejected = perform(login("10.0.0.1", "other@studio.com"));
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("60", rejected.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("auth.ratelimit.rejected").tag("key", "ip").counter().count());
+        assertEquals(200, perform(login("10.0.0.2", "other@studio.com")).getStatus());
+    }
+
+    @Test
+    public void testRejectsEmailTargetedFromManyClients() throws Exception {
+        assertEquals(200, perform(login("10.0.0.1", "user@studio.com")).getStatus());
+        assertEquals(200, perform(login("10.0.0.2", "USER@studio.com")).getStatus());
+
+        MockHttpServletResponse rejected = perform(login("10.0.0.3", "user@studio.com"));
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals(1.0, meterRegistry.get("auth.ratelimit.rejected").tag("key", "email").counter().count());
+    }
+
+    @Test
+    public void testBodyIsStillReadableDownstream() throws Exception {
+        MockHttpServletRequest request = login("10.0.0.1", "user@studio.com");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        String body = StreamUtils.copyToString(chain.getRequest().getInputStream(), StandardCharsets.UTF_8);
+        assertTrue(body.contains("user@studio.com"));
+    }
+
+    @Test
+    public void testChunkedBodyIsChargedToItsEmail() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertEquals(200, perform(chunked(login("10.0.0." + i, "user@studio.com"))).getStatus());
+        }
+
+        assertEquals(429, perform(chunked(login("10.0.0.9", "user@studio.com"))).getStatus());
+    }
+
+    private MockHttpServletRequest chunked(MockHttpServletRequest login) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setServletPath(login.getServletPath());
+        request.setRemoteAddr(login.getRemoteAddr());
+        request.setContentType(login.getContentType());
+        request.setContent(login.getContentAsByteArray());
+        return request;
+    }
+
+    @Test
+    public void testRejectsBodyOverTheLimit() throws Exception {
+        ReflectionTestUtils.setField(filter, "maxBodyBytes", 64);
+        MockHttpServletRequest request = login("10.0.0.1", "user@studio.com");
+        request.setContent(("{\"email\":\"user@studio.com\",\"password\":\"" + new String(new char[100]).replace('\0', 'x') + "\"}")
+            .getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(413, perform(request).getStatus());
+    }
+
+    @Test
+    public void testOtherEndpointsAreNotLimited() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session");
+            request.setServletPath("/api/session");
+            assertEquals(200, perform(request).getStatus());
+        }
+    }
+
+    @Test
+    public void testBucketsRefillOverTime() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(4, 1, 60, 600, 1000);
+        long now = 0;
+
+        assertEquals(0, buckets.tryAcquire("key", now));
+        assertTrue(buckets.tryAcquire("key", now) > 0);
+        assertEquals(0, buckets.tryAcquire("key", now + TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void testIdleBucketsAreEvicted() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(1, 5, 5, 10, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            buckets.tryAcquire("key" + i, 0);
+        }
+        buckets.tryAcquire("fresh", TimeUnit.SECONDS.toNanos(11));
+
+        assertEquals(1, buckets.size());
+    }
+
+    @Test
+    public void testKeysAreBounded() {
+        StripedTokenBuckets buckets = new StripedTokenBuckets(4, 5, 5, 600, 40);
+
+        for (int i = 0; i < 1000; i++) {
+            buckets.tryAcquire("key" + i, i);
+        }
+
+        assertTrue(buckets.size() <= 40);
+    }
+}
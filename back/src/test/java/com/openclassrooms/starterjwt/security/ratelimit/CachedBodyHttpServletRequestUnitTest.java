@@ -0,0 +1,101 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+public class CachedBodyHttpServletRequestUnitTest {
+
+    private static final String BODY = "{\"email\":\"user@studio.com\",\"password\":\"test!1234\"}";
+
+    private CachedBodyHttpServletRequest cache(String body, int maxBytes) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return CachedBodyHttpServletRequest.readAtMost(request, maxBytes);
+    }
+
+    @Test
+    public void testBodyCanBeReadAgain() throws IOException {
+        CachedBodyHttpServletRequest request = cache(BODY, 4096);
+
+        assertEquals(BODY, StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+        assertEquals(BODY, StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testBodyLongerThanTheLimitIsNotCached() throws IOException {
+        assertNull(cache(BODY, BODY.length() - 1));
+    }
+
+    @Test
+    public void testReadListenerReceivesTheWholeBody() throws IOException {
+        ServletInputStream input = cache(BODY, 4096).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data");
+                byte[] buffer = new byte[16];
+                int count;
+                while (input.isReady() && (count = input.read(buffer)) > 0) {
+                    read.write(buffer, 0, count);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("end");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(Arrays.asList("data", "end"), events);
+        assertEquals(BODY, new String(read.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadListenerFailureIsReported() throws IOException {
+        ServletInputStream input = cache(BODY, 4096).getInputStream();
+        IOException failure = new IOException("Broken listener");
+        List<Throwable> errors = new ArrayList<>();
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                throw failure;
+            }
+
+            @Override
+            public void onAllDataRead() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                errors.add(t);
+            }
+        });
+
+        assertEquals(1, errors.size());
+        assertSame(failure, errors.get(0));
+    }
+}
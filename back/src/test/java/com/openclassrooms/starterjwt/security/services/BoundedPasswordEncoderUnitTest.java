@@ -0,0 +1,78 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.openclassrooms.starterjwt.exception.PasswordHashingUnavailableException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BoundedPasswordEncoderUnitTest {
+
+    @Test
+    public void testEncodeAndMatchesRunOnThePool() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, 2, registry);
+
+        String hash = encoder.encode("test!1234");
+
+        assertTrue(encoder.matches("test!1234", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(1, registry.get("auth.password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(2, registry.get("auth.password.hashing").tag("operation", "matches").timer().count());
+        encoder.shutdown();
+    }
+
+    @Test
+    public void testSaturatedPoolFailsFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 1, 1, 3, registry);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        callers.submit(() -> encoder.encode("running"));
+        started.await(5, TimeUnit.SECONDS);
+        callers.submit(() -> encoder.encode("queued"));
+        while (registry.get("auth.password.hashing.queue").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        PasswordHashingUnavailableException e = assertThrows(PasswordHashingUnavailableException.class,
+            () -> encoder.encode("rejected"));
+        assertEquals(3, e.getRetryAfterSeconds());
+        assertEquals(1, registry.get("auth.password.hashing.rejected").counter().count());
+
+        release.countDown();
+        callers.shutdown();
+        encoder.shutdown();
+    }
+}
@@ -0,0 +1,84 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.openclassrooms.starterjwt.models.DeletedUser;
+import com.openclassrooms.starterjwt.repository.DeletedUserRepository;
+import com.openclassrooms.starterjwt.services.UserDeletedEvent;
+
+@ExtendWith(MockitoExtension.class)
+public class DeletedUserRegistryUnitTest {
+
+    @Mock
+    private DeletedUserRepository deletedUserRepository;
+
+    private DeletedUserRegistry deletedUserRegistry;
+
+    @BeforeEach
+    public void setup() {
+        deletedUserRegistry = new DeletedUserRegistry(deletedUserRepository, 1, 60000);
+    }
+
+    private DeletedUser deletedUser(Long id, Long userId) {
+        return DeletedUser.builder().id(id).userId(userId).expiresAt(LocalDateTime.now().plusMinutes(1)).build();
+    }
+
+    @Test
+    public void testDeletionIsStoredAndRememberedById() {
+        UserDeletedEvent event = new UserDeletedEvent(7L, "user@studio.com");
+
+        deletedUserRegistry.recordDeletion(event);
+        deletedUserRegistry.onUserDeleted(event);
+
+        ArgumentCaptor<DeletedUser> saved = ArgumentCaptor.forClass(DeletedUser.class);
+        verify(deletedUserRepository).save(saved.capture());
+        assertEquals(7L, saved.getValue().getUserId());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now()));
+        assertTrue(deletedUserRegistry.isDeleted(7L));
+        // The same email registered again gets another id.
+        assertFalse(deletedUserRegistry.isDeleted(8L));
+    }
+
+    @Test
+    public void testDeletionsOfOtherNodesArePolled() {
+        when(deletedUserRepository.findActiveAfter(eq(0L), any()))
+            .thenReturn(Arrays.asList(deletedUser(1L, 7L), deletedUser(2L, 9L)))
+            .thenReturn(Collections.emptyList());
+
+        deletedUserRegistry.pollDeletions();
+        deletedUserRegistry.pollDeletions();
+
+        assertTrue(deletedUserRegistry.isDeleted(7L));
+        assertTrue(deletedUserRegistry.isDeleted(9L));
+        assertFalse(deletedUserRegistry.isDeleted(8L));
+    }
+
+    @Test
+    public void testPollCursorWaitsForLateCommits() {
+        PollCursor cursor = new PollCursor(1000);
+
+        cursor.seen(6, 0);
+
+        assertEquals(0, cursor.position(999));
+        assertEquals(6, cursor.position(1000));
+        cursor.seen(4, 1000);
+        assertEquals(6, cursor.position(5000));
+    }
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.exception.InvalidRefreshTokenException;
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceUnitTest {
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @BeforeEach
+    public void setup() {
+        ReflectionTestUtils.setField(refreshTokenService, "jwtRefreshExpirationMs", 60000L);
+    }
+
+    @Test
+    public void testCreateStoresOnlyTheHash() {
+        String token = refreshTokenService.create(1L);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertNotEquals(token, saved.getValue().getTokenHash());
+        assertEquals(RefreshTokenService.hash(token), saved.getValue().getTokenHash());
+        assertEquals(1L, saved.getValue().getUserId());
+    }
+
+    @Test
+    public void testRotateIssuesANewToken() {
+        String hash = RefreshTokenService.hash("oldToken");
+        RefreshToken existing = RefreshToken.builder()
+            .tokenHash(hash)
+            .userId(1L)
+            .expiresAt(LocalDateTime.now().plusMinutes(1))
+            .build();
+        User user = new User(1L, "user@studio.com", "Studio", "User", "hash", true, null, null);
+        when(refreshTokenRepository.findByTokenHash(hash)).thenReturn(Optional.of(existing));
+        when(refreshTokenRepository.deleteByTokenHash(hash)).thenReturn(1);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("oldToken");
+
+        assertEquals("user@studio.com", rotation.getUserDetails().getUsername());
+        assertEquals(true, rotation.getUserDetails().getAdmin());
+        assertNotEquals("oldToken", rotation.getRefreshToken());
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    public void testRotateRejectsUnknownToken() {
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("unknown"));
+    }
+
+    @Test
+    public void testRotateRejectsAlreadyRotatedToken() {
+        String hash = RefreshTokenService.hash("oldToken");
+        RefreshToken existing = RefreshToken.builder()
+            .tokenHash(hash)
+            .userId(1L)
+            .expiresAt(LocalDateTime.now().plusMinutes(1))
+            .build();
+        when(refreshTokenRepository.findByTokenHash(hash)).thenReturn(Optional.of(existing));
+        when(refreshTokenRepository.deleteByTokenHash(hash)).thenReturn(0);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("oldToken"));
+    }
+
+    @Test
+    public void testRotateRejectsExpiredToken() {
+        String hash = RefreshTokenService.hash("oldToken");
+        RefreshToken existing = RefreshToken.builder()
+            .tokenHash(hash)
+            .userId(1L)
+            .expiresAt(LocalDateTime.now().minusMinutes(1))
+            .build();
+        when(refreshTokenRepository.findByTokenHash(hash)).thenReturn(Optional.of(existing));
+        when(refreshTokenRepository.deleteByTokenHash(hash)).thenReturn(1);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("oldToken"));
+    }
+}
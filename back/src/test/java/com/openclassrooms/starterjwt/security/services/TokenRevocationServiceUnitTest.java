@@ -0,0 +1,150 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationServiceUnitTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    public void setup() {
+        tokenRevocationService = new TokenRevocationService(revokedTokenRepository, 1000, 0.01, 60000);
+    }
+
+    @Test
+    public void testNothingRevokedSkipsTheStore() {
+        assertFalse(tokenRevocationService.isRevoked("token"));
+
+        verify(revokedTokenRepository, never()).existsByTokenHashAndExpiresAtAfter(anyString(), any());
+    }
+
+    @Test
+    public void testRevokeStoresTheHashUntilExpiry() {
+        long expiresAtMs = System.currentTimeMillis() + 60000;
+
+        tokenRevocationService.revoke("token", expiresAtMs);
+
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(saved.capture());
+        assertEquals(RefreshTokenService.hash("token"), saved.getValue().getTokenHash());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    public void testRepeatedRevokeKeepsTheExistingRow() {
+        long expiresAtMs = System.currentTimeMillis() + 60000;
+        when(revokedTokenRepository.save(any()))
+            .thenReturn(null)
+            .thenThrow(new DataIntegrityViolationException("Duplicate entry for key 'UK_REVOKED_TOKENS_TOKEN_HASH'"));
+        when(revokedTokenRepository.existsByTokenHashAndExpiresAtAfter(anyString(), any())).thenReturn(true);
+
+        tokenRevocationService.revoke("token", expiresAtMs);
+        assertDoesNotThrow(() -> tokenRevocationService.revoke("token", expiresAtMs));
+
+        verify(revokedTokenRepository, times(2)).save(any());
+        assertTrue(tokenRevocationService.isRevoked("token"));
+    }
+
+    @Test
+    public void testRevokeIgnoresExpiredToken() {
+        tokenRevocationService.revoke("token", System.currentTimeMillis() - 1);
+
+        verify(revokedTokenRepository, never()).save(any());
+    }
+
+    @Test
+    public void testRevokedTokenIsConfirmedByTheStore() {
+        String tokenHash = RefreshTokenService.hash("token");
+        when(revokedTokenRepository.existsByTokenHashAndExpiresAtAfter(anyString(), any())).thenReturn(true);
+
+        tokenRevocationService.revoke("token", System.currentTimeMillis() + 60000);
+
+        assertTrue(tokenRevocationService.isRevoked("token"));
+        verify(revokedTokenRepository).existsByTokenHashAndExpiresAtAfter(eq(tokenHash), any());
+    }
+
+    @Test
+    public void testRebuildLoadsActiveHashes() {
+        when(revokedTokenRepository.findActiveTokenHashes(any()))
+            .thenReturn(Arrays.asList(RefreshTokenService.hash("first"), RefreshTokenService.hash("second")));
+        when(revokedTokenRepository.existsByTokenHashAndExpiresAtAfter(anyString(), any())).thenReturn(true);
+
+        tokenRevocationService.rebuild();
+
+        assertTrue(tokenRevocationService.isRevoked("first"));
+        assertTrue(tokenRevocationService.isRevoked("second"));
+    }
+
+    @Test
+    public void testTokensRevokedOnOtherNodesArePolled() {
+        RevokedToken revoked = RevokedToken.builder()
+            .id(3L)
+            .tokenHash(RefreshTokenService.hash("token"))
+            .expiresAt(LocalDateTime.now().plusMinutes(1))
+            .build();
+        when(revokedTokenRepository.findActiveAfter(eq(0L), any())).thenReturn(Collections.singletonList(revoked));
+        when(revokedTokenRepository.existsByTokenHashAndExpiresAtAfter(anyString(), any())).thenReturn(true);
+
+        assertFalse(tokenRevocationService.isRevoked("token"));
+        tokenRevocationService.pollRevocations();
+
+        assertTrue(tokenRevocationService.isRevoked("token"));
+    }
+
+    @Test
+    public void testRebuildForgetsPurgedTokens() {
+        tokenRevocationService.revoke("token", System.currentTimeMillis() + 60000);
+        when(revokedTokenRepository.findActiveTokenHashes(any())).thenReturn(Collections.emptyList());
+
+        tokenRevocationService.purgeExpired();
+
+        assertFalse(tokenRevocationService.isRevoked("token"));
+        verify(revokedTokenRepository, never()).existsByTokenHashAndExpiresAtAfter(anyString(), any());
+    }
+
+    @Test
+    public void testBloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(RefreshTokenService.hash("token" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain(RefreshTokenService.hash("token" + i)));
+            if (filter.mightContain(RefreshTokenService.hash("other" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50, "false positives: " + falsePositives);
+    }
+}
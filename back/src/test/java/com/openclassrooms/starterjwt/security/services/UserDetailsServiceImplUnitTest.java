@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.DeletedUserRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.UserDeletedEvent;
+
+@SpringBootTest
+@DirtiesContext
+public class UserDetailsServiceImplUnitTest {
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private DeletedUserRepository deletedUserRepository;
+
+    @Test
+    public void testLoadUserByUsernameIsCachedUntilUserIsDeleted() {
+        User user = new User(1L, "user@studio.com", "Studio", "User", "hash", true, null, null);
+        when(userRepository.findByEmail("user@studio.com")).thenReturn(Optional.of(user));
+
+        UserDetailsImpl first = (UserDetailsImpl) userDetailsService.loadUserByUsername("user@studio.com");
+        userDetailsService.loadUserByUsername("user@studio.com");
+
+        verify(userRepository, times(1)).findByEmail("user@studio.com");
+        assertTrue(first.getAdmin());
+
+        eventPublisher.publishEvent(new UserDeletedEvent(1L, "user@studio.com"));
+        userDetailsService.loadUserByUsername("user@studio.com");
+
+        verify(userRepository, times(2)).findByEmail("user@studio.com");
+    }
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.payload.request.BulkParticipationRequest.Participation;
+import com.openclassrooms.starterjwt.payload.response.BulkParticipationReport;
+import com.openclassrooms.starterjwt.payload.response.BulkParticipationReport.Status;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkParticipationServiceTest {
+
+    @InjectMocks
+    private BulkParticipationService bulkParticipationService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ParticipationRepository participationRepository;
+
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private SessionCache sessionCache;
+
+    private List<Status> statuses(BulkParticipationReport report) {
+        return report.getRows().stream().map(BulkParticipationReport.Row::getStatus).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Each pair gets its outcome and accepted pairs are written in one batch")
+    void shouldReportEveryPairWhenEnrollIsCalled() {
+        when(userRepository.findExistingIds(any())).thenReturn(Arrays.asList(10L, 11L, 12L));
+        Map<Long, Integer> freeSeats = new HashMap<>();
+        freeSeats.put(1L, 1);
+        freeSeats.put(2L, Integer.MAX_VALUE);
+        when(participationRepository.lockFreeSeats(any())).thenReturn(freeSeats);
+        when(participationRepository.findParticipants(any(), any()))
+            .thenReturn(Collections.singletonMap(2L, Collections.singleton(12L)));
+
+        BulkParticipationReport report = bulkParticipationService.enroll(Arrays.asList(
+            new Participation(1L, 10L),
+            new Participation(1L, 10L),
+            new Participation(1L, 11L),
+            new Participation(2L, 11L),
+            new Participation(2L, 12L),
+            new Participation(2L, 99L),
+            new Participation(3L, 10L)));
+
+        assertEquals(Arrays.asList(
+            Status.ENROLLED,
+            Status.DUPLICATE,
+            Status.SESSION_FULL,
+            Status.ENROLLED,
+            Status.ALREADY_PARTICIPATING,
+            Status.UNKNOWN_USER,
+            Status.UNKNOWN_SESSION), statuses(report));
+        assertEquals(2, report.getEnrolled());
+        assertEquals(5, report.getRejected());
+
+        Map<Long, List<Long>> accepted = new LinkedHashMap<>();
+        accepted.put(1L, Collections.singletonList(10L));
+        accepted.put(2L, Collections.singletonList(11L));
+        verify(participationRepository).insertAll(accepted);
+        verify(waitlistRepository).deleteAll(accepted);
+        verify(sessionCache).evictAll(accepted.keySet());
+    }
+
+    @Test
+    @DisplayName("Nothing is written when every pair is rejected")
+    void shouldNotWriteWhenNoPairIsAccepted() {
+        when(userRepository.findExistingIds(any())).thenReturn(Collections.emptyList());
+        when(participationRepository.lockFreeSeats(any())).thenReturn(Collections.singletonMap(1L, 5));
+
+        BulkParticipationReport report = bulkParticipationService.enroll(Collections.singletonList(new Participation(1L, 10L)));
+
+        assertEquals(Collections.singletonList(Status.UNKNOWN_USER), statuses(report));
+        verify(participationRepository, never()).insertAll(anyMap());
+        verify(waitlistRepository, never()).deleteAll(anyMap());
+        verifyNoInteractions(sessionCache);
+    }
+}
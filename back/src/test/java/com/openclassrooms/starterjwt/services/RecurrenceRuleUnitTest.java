@@ -0,0 +1,81 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecurrenceRuleTest {
+
+    // A Tuesday.
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 6, 18, 30);
+
+    @Test
+    @DisplayName("Rules are read in any case and written back in canonical form")
+    void shouldNormalizeRules() {
+        assertEquals("FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH",
+                RecurrenceRule.parse("RRULE:byday=TH,TU;freq=weekly;interval=2").toString());
+        assertEquals("FREQ=DAILY", RecurrenceRule.parse("FREQ=DAILY;INTERVAL=1").toString());
+    }
+
+    @Test
+    @DisplayName("Malformed and unsupported rules are rejected")
+    void shouldRejectInvalidRules() {
+        for (String rule : Arrays.asList(null, "", "FREQ=MONTHLY", "FREQ=WEEKLY;COUNT=10", "FREQ=DAILY;BYDAY=MO",
+                "FREQ=WEEKLY;BYDAY=XX", "FREQ=WEEKLY;INTERVAL=0", "FREQ=WEEKLY;INTERVAL=two", "INTERVAL=2",
+                "FREQ=WEEKLY;FREQ=DAILY", "FREQ")) {
+            assertThrows(BadRequestException.class, () -> RecurrenceRule.parse(rule), String.valueOf(rule));
+        }
+    }
+
+    @Test
+    @DisplayName("Daily occurrences keep the time of the first one")
+    void shouldRepeatDaily() {
+        assertEquals(Arrays.asList(
+                        LocalDateTime.of(2026, 1, 6, 18, 30),
+                        LocalDateTime.of(2026, 1, 9, 18, 30),
+                        LocalDateTime.of(2026, 1, 12, 18, 30)),
+                RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3")
+                        .occurrences(START, START, LocalDateTime.of(2026, 1, 15, 0, 0)));
+    }
+
+    @Test
+    @DisplayName("Weekly occurrences fall on the given days, every other week")
+    void shouldRepeatOnGivenDays() {
+        assertEquals(Arrays.asList(
+                        LocalDateTime.of(2026, 1, 8, 18, 30),
+                        LocalDateTime.of(2026, 1, 19, 18, 30),
+                        LocalDateTime.of(2026, 1, 22, 18, 30)),
+                RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH")
+                        .occurrences(START, START, LocalDateTime.of(2026, 2, 2, 0, 0)));
+    }
+
+    @Test
+    @DisplayName("A weekly rule without days repeats on the day of the first occurrence")
+    void shouldRepeatOnStartDay() {
+        assertEquals(Arrays.asList(
+                        LocalDateTime.of(2026, 1, 6, 18, 30),
+                        LocalDateTime.of(2026, 1, 13, 18, 30)),
+                RecurrenceRule.parse("FREQ=WEEKLY")
+                        .occurrences(START, START, LocalDateTime.of(2026, 1, 20, 18, 30)));
+    }
+
+    @Test
+    @DisplayName("Occurrences start from the given instant")
+    void shouldStartFromGivenInstant() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=TU,TH");
+
+        assertEquals(Arrays.asList(
+                        LocalDateTime.of(2027, 1, 7, 18, 30),
+                        LocalDateTime.of(2027, 1, 12, 18, 30)),
+                rule.occurrences(START, LocalDateTime.of(2027, 1, 5, 19, 0), LocalDateTime.of(2027, 1, 14, 0, 0)));
+        assertEquals(Collections.emptyList(),
+                rule.occurrences(START, LocalDateTime.of(2025, 1, 1, 0, 0), START));
+    }
+}
@@ -0,0 +1,139 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionSearchIndexTest {
+
+    @InjectMocks
+    private SessionSearchIndex searchIndex;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @BeforeEach
+    void setUp() {
+        when(sessionRepository.findSearchableTextVersion()).thenReturn("4:1234");
+        when(sessionRepository.findSearchableText()).thenReturn(Arrays.asList(
+            new Object[] {1L, "Vinyasa flow", "Enchaînements dynamiques pour tous les niveaux"},
+            new Object[] {2L, "Yoga prénatal", "Séance douce pour les futures mamans"},
+            new Object[] {3L, "Méditation", "Respiration et méditation guidée, après une séance de vinyasa"},
+            new Object[] {4L, "Yin yoga", "Postures tenues longtemps"}));
+        searchIndex.rebuild();
+    }
+
+    private Session session(Long id, String name, String description) {
+        return Session.builder().id(id).name(name).description(description).build();
+    }
+
+    @Test
+    @DisplayName("Accents are ignored on both sides")
+    void shouldMatchRegardlessOfAccents() {
+        assertEquals(Collections.singletonList(2L), searchIndex.search("prenatal", 10));
+        assertEquals(Collections.singletonList(3L), searchIndex.search("MÉDITATION", 10));
+        assertEquals(Collections.singletonList(1L), searchIndex.search("enchainements", 10));
+    }
+
+    @Test
+    @DisplayName("Query words match as prefixes")
+    void shouldMatchPrefixes() {
+        assertEquals(Arrays.asList(2L, 4L), searchIndex.search("yog", 10));
+        assertEquals(Collections.singletonList(3L), searchIndex.search("respi", 10));
+    }
+
+    @Test
+    @DisplayName("Name matches rank above description matches")
+    void shouldRankNameAboveDescription() {
+        assertEquals(Arrays.asList(1L, 3L), searchIndex.search("vinyasa", 10));
+    }
+
+    @Test
+    @DisplayName("Every query word must match")
+    void shouldRequireEveryWord() {
+        assertEquals(Collections.singletonList(4L), searchIndex.search("yoga yin", 10));
+        assertTrue(searchIndex.search("yoga vinyasa", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Stop words and punctuation do not match anything")
+    void shouldIgnoreStopWords() {
+        assertTrue(searchIndex.search("les", 10).isEmpty());
+        assertEquals(Collections.singletonList(2L), searchIndex.search("séance pour mamans !", 10));
+    }
+
+    @Test
+    @DisplayName("Index follows saved and deleted sessions")
+    void shouldFollowChanges() {
+        searchIndex.onSessionChanged(SessionChangedEvent.saved(session(5L, "Yoga nidra", "Relaxation profonde")));
+        searchIndex.onSessionChanged(SessionChangedEvent.saved(session(2L, "Pilates", "Renforcement")));
+        searchIndex.onSessionChanged(SessionChangedEvent.deleted(4L));
+
+        assertEquals(Collections.singletonList(5L), searchIndex.search("yoga", 10));
+        assertTrue(searchIndex.search("prenatal", 10).isEmpty());
+        assertEquals(Collections.singletonList(2L), searchIndex.search("pilates", 10));
+    }
+
+    @Test
+    @DisplayName("Results are limited")
+    void shouldLimitResults() {
+        assertEquals(Collections.singletonList(2L), searchIndex.search("yoga", 1));
+    }
+
+    @Test
+    @DisplayName("Reconcile leaves an up to date index alone")
+    void shouldNotRebuildWhenTableIsUnchanged() {
+        searchIndex.reconcile();
+
+        verify(sessionRepository, times(1)).findSearchableText();
+    }
+
+    @Test
+    @DisplayName("Reconcile rebuilds the index once the table changed")
+    void shouldRebuildWhenTableChanged() {
+        when(sessionRepository.findSearchableTextVersion()).thenReturn("2:5678");
+        when(sessionRepository.findSearchableText()).thenReturn(Arrays.asList(
+            new Object[] {4L, "Yin yoga", "Postures tenues longtemps"},
+            new Object[] {5L, "Yoga nidra", "Relaxation profonde"}));
+
+        searchIndex.reconcile();
+        searchIndex.reconcile();
+
+        assertEquals(Arrays.asList(4L, 5L), searchIndex.search("yoga", 10));
+        assertTrue(searchIndex.search("vinyasa", 10).isEmpty());
+        verify(sessionRepository, times(2)).findSearchableText();
+    }
+
+    @Test
+    @DisplayName("Changes committed during a rebuild survive it")
+    void shouldKeepChangesMadeWhileRebuilding() {
+        when(sessionRepository.findSearchableText()).thenAnswer(invocation -> {
+            searchIndex.onSessionChanged(SessionChangedEvent.saved(session(5L, "Yoga nidra", "Relaxation profonde")));
+            searchIndex.onSessionChanged(SessionChangedEvent.deleted(4L));
+            return Arrays.asList(
+                new Object[] {1L, "Vinyasa flow", "Enchaînements dynamiques pour tous les niveaux"},
+                new Object[] {4L, "Yin yoga", "Postures tenues longtemps"});
+        });
+
+        searchIndex.rebuild();
+
+        assertEquals(Collections.singletonList(5L), searchIndex.search("yoga", 10));
+        assertTrue(searchIndex.search("prenatal", 10).isEmpty());
+    }
+}
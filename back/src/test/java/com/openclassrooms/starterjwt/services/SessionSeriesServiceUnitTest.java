@@ -0,0 +1,169 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.SessionFullException;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.OccurrenceRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionSeriesServiceTest {
+
+    @Mock
+    private SessionSeriesRepository seriesRepository;
+
+    @Mock
+    private OccurrenceRepository occurrenceRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private SessionCache sessionCache;
+
+    private SessionSeriesService seriesService;
+
+    @BeforeEach
+    void setUp() {
+        seriesService = new SessionSeriesService(seriesRepository, occurrenceRepository, eventPublisher, transactionManager, sessionCache);
+        ReflectionTestUtils.setField(seriesService, "horizonDays", 90);
+        ReflectionTestUtils.setField(seriesService, "insertBatchSize", 500);
+    }
+
+    private SessionSeries series(String recurrence, LocalDateTime start, LocalDateTime endsAt) {
+        return SessionSeries.builder()
+                .id(1L)
+                .name("Vinyasa flow")
+                .description("Every week")
+                .recurrence(recurrence)
+                .startAt(start)
+                .endsAt(endsAt)
+                .materializedUntil(start)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Create saves the series and its occurrences but the exceptions")
+    void shouldCreateOccurrencesWhenCreateIsCalled() {
+        LocalDateTime start = LocalDate.now().plusDays(1).atTime(18, 0);
+        SessionSeries series = series("freq=daily", start, start.toLocalDate().plusDays(4).atStartOfDay());
+        series.setExceptions(new HashSet<>(Collections.singletonList(start.toLocalDate().plusDays(1))));
+        when(seriesRepository.save(series)).then(returnsFirstArg());
+        when(occurrenceRepository.findIds(eq(1L), any(), any())).thenReturn(Arrays.asList(10L, 11L, 12L));
+
+        seriesService.create(series);
+
+        assertEquals("FREQ=DAILY", series.getRecurrence());
+        verify(occurrenceRepository).insertAll(series, Arrays.asList(start, start.plusDays(2), start.plusDays(3)), 500);
+        verify(eventPublisher, times(3)).publishEvent(any(SessionChangedEvent.class));
+        assertEquals(series.getEndsAt(), series.getMaterializedUntil());
+    }
+
+    @Test
+    @DisplayName("Create rejects an invalid rule or a series ending before it starts")
+    void shouldThrowBadRequestWhenSeriesIsInvalid() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 6, 18, 0);
+
+        assertThrows(BadRequestException.class, () -> seriesService.create(series("FREQ=YEARLY", start, null)));
+        assertThrows(BadRequestException.class, () -> seriesService.create(series("FREQ=DAILY", start, start)));
+        verify(seriesRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Materialize only creates the occurrences past the current horizon")
+    void shouldCreateOnlyNewOccurrencesWhenMaterializeIsCalled() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 6, 18, 0);
+        SessionSeries series = series("FREQ=WEEKLY;BYDAY=TU,TH", start, null);
+
+        seriesService.materialize(series, LocalDateTime.of(2026, 1, 20, 0, 0));
+        seriesService.materialize(series, LocalDateTime.of(2026, 1, 27, 0, 0));
+        seriesService.materialize(series, LocalDateTime.of(2026, 1, 27, 0, 0));
+
+        verify(occurrenceRepository).insertAll(series, Arrays.asList(start, start.plusDays(2), start.plusDays(7), start.plusDays(9)), 500);
+        verify(occurrenceRepository).insertAll(series, Arrays.asList(start.plusDays(14), start.plusDays(16)), 500);
+        verify(occurrenceRepository, times(2)).insertAll(any(), anyList(), anyInt());
+        assertEquals(LocalDateTime.of(2026, 1, 27, 0, 0), series.getMaterializedUntil());
+    }
+
+    @Test
+    @DisplayName("Update rewrites the occurrences to come in one statement")
+    void shouldUpdateOccurrencesWhenUpdateIsCalled() {
+        SessionSeries series = series("FREQ=WEEKLY", LocalDateTime.of(2026, 1, 6, 18, 0), null);
+        SessionSeries changes = SessionSeries.builder().name("Yin yoga").description("Slow").capacity(12).build();
+        when(seriesRepository.findForUpdate(1L)).thenReturn(Optional.of(series));
+        when(seriesRepository.save(series)).then(returnsFirstArg());
+        when(occurrenceRepository.findIds(eq(1L), any(), isNull())).thenReturn(Arrays.asList(10L, 11L));
+
+        SessionSeries updated = seriesService.update(1L, changes);
+
+        assertEquals("Yin yoga", updated.getName());
+        assertEquals(12, updated.getCapacity());
+        verify(occurrenceRepository).updateFrom(eq(series), any());
+        verify(eventPublisher, times(2)).publishEvent(any(SessionChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Update fails when an occurrence has more participants than the new capacity")
+    void shouldThrowSessionFullWhenCapacityIsTooLow() {
+        SessionSeries series = series("FREQ=WEEKLY", LocalDateTime.of(2026, 1, 6, 18, 0), null);
+        when(seriesRepository.findForUpdate(1L)).thenReturn(Optional.of(series));
+        when(occurrenceRepository.countOverbookedFrom(eq(1L), any())).thenReturn(1);
+
+        assertThrows(SessionFullException.class,
+                () -> seriesService.update(1L, SessionSeries.builder().name("Yin yoga").description("Slow").capacity(2).build()));
+        verify(seriesRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Update of an unknown series throws NotFoundException")
+    void shouldThrowNotFoundWhenSeriesDoesNotExist() {
+        when(seriesRepository.findForUpdate(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> seriesService.update(1L, new SessionSeries()));
+    }
+
+    @Test
+    @DisplayName("Extending horizons goes on after a failing series")
+    void shouldExtendEverySeriesWhenExtendHorizonsIsCalled() {
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        SessionSeries series = series("FREQ=WEEKLY", start, null);
+        when(seriesRepository.findIdsToExtend(any())).thenReturn(Arrays.asList(1L, 2L));
+        when(seriesRepository.findForUpdate(1L)).thenThrow(new QueryTimeoutException("timeout"));
+        when(seriesRepository.findForUpdate(2L)).thenReturn(Optional.of(series));
+
+        seriesService.extendHorizons();
+
+        verify(occurrenceRepository).insertAll(eq(series), anyList(), anyInt());
+        assertEquals(LocalDate.now().plusDays(90), series.getMaterializedUntil().toLocalDate());
+    }
+}
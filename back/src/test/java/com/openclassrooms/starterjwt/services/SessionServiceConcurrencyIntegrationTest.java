@@ -0,0 +1,189 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.SessionFullException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires simultaneous bookings at one session through the real transaction and locking path.
+ * Not transactional: every booking must commit on its own connection.
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class SessionServiceConcurrencyIntegrationTest {
+
+    private static final int BOOKINGS = 2000;
+
+    private static final int CAPACITY = 25;
+
+    private static final int THREADS = 32;
+
+    private static final String EMAIL_PREFIX = "booking-stress-";
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Teacher teacher;
+
+    private Long sessionId;
+
+    private List<Long> userIds;
+
+    @BeforeEach
+    public void setup() {
+        teacher = teacherRepository.findAll().get(0);
+        sessionId = sessionService.create(Session.builder()
+                .name("Stress")
+                .date(new Date())
+                .description("Concurrent bookings")
+                .teacher(teacher)
+                .capacity(CAPACITY)
+                .build()).getId();
+
+        List<Object[]> users = new ArrayList<>(BOOKINGS);
+        for (int i = 0; i < BOOKINGS; i++) {
+            users.add(new Object[] {EMAIL_PREFIX + i + "@studio.com"});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO USERS (email, first_name, last_name, password, admin) VALUES (?, 'Stress', 'Test', 'x', false)",
+                users);
+        userIds = jdbcTemplate.queryForList("SELECT id FROM USERS WHERE email LIKE ?", Long.class, EMAIL_PREFIX + "%");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", sessionId);
+        jdbcTemplate.update("DELETE FROM USERS WHERE email LIKE ?", EMAIL_PREFIX + "%");
+        sessionRepository.deleteById(sessionId);
+    }
+
+    @Test
+    @DisplayName("Simultaneous bookings never oversell a session")
+    public void shouldNeverExceedCapacityWhenBookingsRace() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger full = new AtomicInteger();
+
+        List<Future<?>> bookings = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            bookings.add(executor.submit(() -> {
+                start.await();
+                try {
+                    sessionService.participate(sessionId, userId);
+                    booked.incrementAndGet();
+                } catch (SessionFullException e) {
+                    full.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> booking : bookings) {
+            booking.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(CAPACITY, booked.get());
+        assertEquals(BOOKINGS - CAPACITY, full.get());
+        assertEquals(CAPACITY, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, sessionId));
+        assertEquals(CAPACITY, jdbcTemplate.queryForObject(
+                "SELECT participant_count FROM SESSIONS WHERE id = ?", Integer.class, sessionId));
+    }
+
+    @Test
+    @DisplayName("Leaving a full session frees its seat")
+    public void shouldFreeSeatWhenParticipantLeaves() {
+        for (int i = 0; i < CAPACITY; i++) {
+            sessionService.participate(sessionId, userIds.get(i));
+        }
+
+        sessionService.noLongerParticipate(sessionId, userIds.get(0));
+        sessionService.participate(sessionId, userIds.get(CAPACITY));
+
+        assertEquals(CAPACITY, jdbcTemplate.queryForObject(
+                "SELECT participant_count FROM SESSIONS WHERE id = ?", Integer.class, sessionId));
+    }
+
+    @Test
+    @DisplayName("Editing a session while it is booked keeps its participant count")
+    public void shouldKeepParticipantCountWhenUpdatesRaceBookings() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+
+        List<Future<?>> tasks = new ArrayList<>(2 * CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            Long userId = userIds.get(i);
+            String name = "Stress " + i;
+            tasks.add(executor.submit(() -> {
+                start.await();
+                sessionService.participate(sessionId, userId);
+                booked.incrementAndGet();
+                return null;
+            }));
+            tasks.add(executor.submit(() -> {
+                start.await();
+                sessionService.update(sessionId, Session.builder()
+                        .name(name)
+                        .date(new Date())
+                        .description("Concurrent bookings")
+                        .teacher(teacher)
+                        .capacity(CAPACITY)
+                        .build());
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertEquals(CAPACITY, booked.get());
+        assertEquals(CAPACITY, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, sessionId));
+        assertEquals(CAPACITY, jdbcTemplate.queryForObject(
+                "SELECT participant_count FROM SESSIONS WHERE id = ?", Integer.class, sessionId));
+        // The counter still guards the capacity.
+        assertThrows(SessionFullException.class, () -> sessionService.participate(sessionId, userIds.get(CAPACITY)));
+    }
+}
@@ -1,20 +1,32 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.exception.SessionFullException;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
-import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.persistence.EntityManager;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,17 +41,26 @@ class SessionServiceTest {
     private SessionRepository sessionRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private ParticipationRepository participationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SessionSearchIndex searchIndex;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SessionMapper sessionMapper;
 
     private Session mockSession;
-    private User mockUser;
 
     @BeforeEach
     void setUp() {
         mockSession = new Session();
         mockSession.setId(1L);
-        mockUser = new User();
-        mockUser.setId(1L);
     }
 
     @Test
@@ -50,15 +71,101 @@ class SessionServiceTest {
         Session actualSession = sessionService.create(mockSession);
 
         verify(sessionRepository).save(mockSession);
+        verify(eventPublisher).publishEvent(any(SessionChangedEvent.class));
         assertEquals(mockSession, actualSession);
     }
 
+    @Test
+    @DisplayName("Find Session DTO maps the session without its participants")
+    void shouldMapSessionWithoutUsersWhenFindDtoByIdIsCalled() {
+        SessionDto dto = new SessionDto();
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+        when(sessionMapper.toDtoWithoutUsers(mockSession)).thenReturn(dto);
+
+        assertSame(dto, sessionService.findDtoById(1L));
+    }
+
+    @Test
+    @DisplayName("Find Session DTO By Non Existing ID")
+    void shouldThrowNotFoundWhenFindDtoByIdIsCalledWithNonExistingId() {
+        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> sessionService.findDtoById(1L));
+    }
+
+    @Test
+    @DisplayName("Create session counts its participants")
+    void shouldSetParticipantCountWhenCreateIsCalledWithUsers() {
+        mockSession.setUsers(Arrays.asList(new User(), new User()));
+        when(sessionRepository.save(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Session actualSession = sessionService.create(mockSession);
+
+        assertEquals(2, actualSession.getParticipantCount());
+    }
+
+    @Test
+    @DisplayName("Create session with more participants than its capacity")
+    void shouldThrowSessionFullExceptionWhenCreateIsCalledWithTooManyUsers() {
+        mockSession.setCapacity(1);
+        mockSession.setUsers(Arrays.asList(new User(), new User()));
+
+        assertThrows(SessionFullException.class, () -> sessionService.create(mockSession));
+        verify(sessionRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Delete session")
     void shouldDeleteSessionWhenDeleteIsCalled() {
         sessionService.delete(1L);
 
         verify(sessionRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(any(SessionChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Each streamed session is consumed then detached, and the stream is closed")
+    void shouldDetachEachSessionWhenForEachSessionIsCalled() {
+        Session secondSession = new Session();
+        secondSession.setId(2L);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(sessionRepository.streamAll()).thenReturn(Stream.of(mockSession, secondSession).onClose(() -> closed.set(true)));
+        List<Session> consumed = new ArrayList<>();
+
+        sessionService.forEachSession(session -> {
+            verify(entityManager, never()).detach(session);
+            consumed.add(session);
+        });
+
+        assertEquals(Arrays.asList(mockSession, secondSession), consumed);
+        verify(entityManager).detach(mockSession);
+        verify(entityManager).detach(secondSession);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Search returns sessions in ranking order")
+    void shouldReturnSessionsInIndexOrderWhenSearchIsCalled() {
+        ReflectionTestUtils.setField(sessionService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(sessionService, "maxPageSize", 100);
+        Session secondSession = new Session();
+        secondSession.setId(2L);
+        when(searchIndex.search("yoga", 20)).thenReturn(Arrays.asList(2L, 3L, 1L));
+        when(sessionRepository.findAllById(Arrays.asList(2L, 3L, 1L))).thenReturn(Arrays.asList(mockSession, secondSession));
+
+        List<Session> sessions = sessionService.search("yoga", null);
+
+        assertEquals(Arrays.asList(secondSession, mockSession), sessions);
+    }
+
+    @Test
+    @DisplayName("Search without match does not query sessions")
+    void shouldNotQuerySessionsWhenSearchFindsNothing() {
+        ReflectionTestUtils.setField(sessionService, "maxPageSize", 100);
+        when(searchIndex.search("pilates", 5)).thenReturn(Collections.emptyList());
+
+        assertTrue(sessionService.search("pilates", 5).isEmpty());
+        verify(sessionRepository, never()).findAllById(any());
     }
 
     @Test
@@ -74,6 +181,70 @@ class SessionServiceTest {
         assertTrue(sessions.containsAll(Arrays.asList(mockSession, secondExpectedSession)));
     }
 
+    private SessionDto sessionAt(long id, long time) {
+        SessionDto session = new SessionDto();
+        session.setId(id);
+        session.setDate(new Date(time));
+        return session;
+    }
+
+    @Test
+    @DisplayName("Return all sessions as DTOs")
+    void shouldReadAllSummariesWhenFindAllSummariesIsCalled() {
+        when(sessionRepository.findSummaries(null, null, null, null, null, null, false))
+            .thenReturn(Arrays.asList(sessionAt(1L, 1000L), sessionAt(2L, 2000L)));
+
+        List<SessionDto> sessions = sessionService.findAllSummaries(false);
+
+        assertEquals(2, sessions.size());
+    }
+
+    @Test
+    @DisplayName("Find first page of sessions")
+    void shouldReturnFirstPageAndCursorWhenMoreSessionsExist() {
+        ReflectionTestUtils.setField(sessionService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(sessionService, "maxPageSize", 100);
+        when(sessionRepository.findSummaries(null, null, null, null, null, 3, false))
+            .thenReturn(Arrays.asList(sessionAt(1L, 1000L), sessionAt(2L, 2000L), sessionAt(3L, 3000L)));
+
+        SessionService.Page page = sessionService.findPage(null, null, null, null, null, false);
+
+        assertEquals(2, page.getSessions().size());
+        assertArrayEquals(new long[] {2000L, 2L}, SessionService.decodeCursor(page.getNextCursor()));
+    }
+
+    @Test
+    @DisplayName("Find next page of sessions from a cursor")
+    void shouldSeekAfterCursorWhenFindPageIsCalledWithCursor() {
+        ReflectionTestUtils.setField(sessionService, "maxPageSize", 100);
+        String cursor = SessionService.encodeCursor(new Date(2000L), 2L);
+        when(sessionRepository.findSummaries(1L, null, null, new Date(2000L), 2L, 11, true))
+            .thenReturn(Collections.singletonList(sessionAt(3L, 3000L)));
+
+        SessionService.Page page = sessionService.findPage(cursor, 10, null, null, 1L, true);
+
+        assertEquals(1, page.getSessions().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Page size is capped")
+    void shouldCapPageSizeWhenFindPageIsCalledWithLargeSize() {
+        ReflectionTestUtils.setField(sessionService, "maxPageSize", 100);
+        when(sessionRepository.findSummaries(null, null, null, null, null, 101, false)).thenReturn(Collections.emptyList());
+
+        sessionService.findPage(null, 5000, null, null, null, false);
+
+        verify(sessionRepository).findSummaries(null, null, null, null, null, 101, false);
+    }
+
+    @Test
+    @DisplayName("Invalid page parameters")
+    void shouldThrowBadRequestWhenFindPageIsCalledWithInvalidParameters() {
+        assertThrows(BadRequestException.class, () -> sessionService.findPage("not a cursor", 10, null, null, null, false));
+        assertThrows(BadRequestException.class, () -> sessionService.findPage(null, 0, null, null, null, false));
+    }
+
     @Test
     @DisplayName("Find Session By Existing ID")
     void shouldReturnSessionWhenGetByIdIsCalledWithExistingId() {
@@ -97,78 +268,163 @@ class SessionServiceTest {
         assertEquals(updatedSession, actualSession);
     }
 
+    @Test
+    @DisplayName("Update Session without participant list keeps the participants")
+    void shouldKeepParticipantsWhenUpdateIsCalledWithoutUsers() {
+        List<User> participants = Arrays.asList(new User(), new User());
+        Session existingSession = Session.builder().id(1L).users(participants).participantCount(2).build();
+        Session updatedSession = Session.builder().name("Renamed").build();
+        when(sessionRepository.findForUpdate(1L)).thenReturn(Optional.of(existingSession));
+        when(sessionRepository.save(updatedSession)).thenReturn(updatedSession);
+
+        Session actualSession = sessionService.update(1L, updatedSession);
+
+        assertSame(participants, actualSession.getUsers());
+        assertEquals(2, actualSession.getParticipantCount());
+        verify(participationRepository, never()).recountSeats(any());
+    }
+
+    @Test
+    @DisplayName("Update Session with a participant list recounts the participants")
+    void shouldRecountParticipantsWhenUpdateReplacesUsers() {
+        Session existingSession = Session.builder().id(1L).users(new ArrayList<>()).participantCount(5).build();
+        Session updatedSession = Session.builder().users(Arrays.asList(new User(), new User())).build();
+        when(sessionRepository.findForUpdate(1L)).thenReturn(Optional.of(existingSession));
+        when(sessionRepository.save(updatedSession)).thenReturn(updatedSession);
+
+        sessionService.update(1L, updatedSession);
+
+        InOrder inOrder = inOrder(sessionRepository, entityManager, participationRepository);
+        inOrder.verify(sessionRepository).findForUpdate(1L);
+        inOrder.verify(sessionRepository).save(updatedSession);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(participationRepository).recountSeats(1L);
+    }
+
+    @Test
+    @DisplayName("Update Session below its participant count")
+    void shouldThrowSessionFullExceptionWhenUpdateLowersCapacityBelowParticipants() {
+        Session existingSession = Session.builder().id(1L).users(new ArrayList<>()).participantCount(5).build();
+        when(sessionRepository.findForUpdate(1L)).thenReturn(Optional.of(existingSession));
+
+        assertThrows(SessionFullException.class,
+            () -> sessionService.update(1L, Session.builder().capacity(3).build()));
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Find first page of participants")
+    void shouldReturnParticipantsAndCursorWhenMoreParticipantsExist() {
+        ReflectionTestUtils.setField(sessionService, "maxParticipantPageSize", 500);
+        User first = new User();
+        first.setId(4L);
+        User second = new User();
+        second.setId(7L);
+        when(sessionRepository.findParticipants(1L, null, PageRequest.of(0, 2))).thenReturn(Arrays.asList(first, second));
+
+        SessionService.ParticipantPage page = sessionService.findParticipants(1L, null, 1);
+
+        assertEquals(Collections.singletonList(first), page.getUsers());
+        assertEquals(SessionService.encodeCursor(4L), page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Find participants of an unknown session")
+    void shouldThrowNotFoundWhenFindParticipantsIsCalledWithNonExistingSessionId() {
+        ReflectionTestUtils.setField(sessionService, "maxParticipantPageSize", 500);
+        when(sessionRepository.findParticipants(2L, null, PageRequest.of(0, 11))).thenReturn(Collections.emptyList());
+        when(sessionRepository.existsById(2L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> sessionService.findParticipants(2L, null, 10));
+    }
+
+    @Test
+    @DisplayName("Session cursor is not a participant cursor")
+    void shouldThrowBadRequestWhenFindParticipantsIsCalledWithSessionCursor() {
+        String cursor = SessionService.encodeCursor(new Date(2000L), 2L);
+
+        assertThrows(BadRequestException.class, () -> sessionService.findParticipants(1L, cursor, 10));
+    }
+
     @Test
     @DisplayName("Add User to Session")
-    void shouldAddUserToSessionWhenParticipateIsCalledWithExistingSessionAndUserId() {
-        mockSession.setUsers(new ArrayList<>());
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+    void shouldInsertParticipationWhenParticipateIsCalledWithExistingSessionAndUserId() {
+        when(participationRepository.reserveSeat(1L)).thenReturn(true);
 
         sessionService.participate(1L, 1L);
 
-        verify(sessionRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        assertTrue(mockSession.getUsers().contains(mockUser));
-        verify(sessionRepository).save(mockSession);
+        verify(participationRepository).insert(1L, 1L);
+        verify(sessionRepository, never()).findById(anyLong());
+        verify(sessionRepository, never()).save(any());
     }
 
     @Test
     @DisplayName("Remove User from Session")
-    void shouldRemoveUserFromSessionWhenNoLongerParticipateIsCalledWithExistingSessionAndUserId() {
-        User secondExpectedUser = new User();
-        secondExpectedUser.setId(2L);
-        mockSession.setUsers(Arrays.asList(mockUser, secondExpectedUser));
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+    void shouldDeleteParticipationWhenNoLongerParticipateIsCalledWithExistingSessionAndUserId() {
+        when(participationRepository.delete(1L, 1L)).thenReturn(true);
 
         sessionService.noLongerParticipate(1L, 1L);
 
-        verify(sessionRepository).findById(1L);
-        assertEquals(1, mockSession.getUsers().size());
-        assertTrue(mockSession.getUsers().contains(secondExpectedUser));
-        verify(sessionRepository).save(mockSession);
+        verify(participationRepository).releaseSeat(1L);
+        verify(eventPublisher).publishEvent(any(SeatReleasedEvent.class));
+        verify(sessionRepository, never()).findById(anyLong());
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Participate - Session or User Not Found")
+    void shouldThrowNotFoundExceptionWhenParticipateViolatesForeignKey() {
+        when(participationRepository.reserveSeat(2L)).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("foreign key")).when(participationRepository).insert(2L, 1L);
+
+        assertThrows(NotFoundException.class, () -> sessionService.participate(2L, 1L));
     }
 
     @Test
     @DisplayName("Participate - Session Not Found")
     void shouldThrowNotFoundExceptionWhenParticipateIsCalledWithNonExistingSessionId() {
-        when(sessionRepository.findById(2L)).thenReturn(Optional.empty());
+        when(participationRepository.reserveSeat(2L)).thenReturn(false);
+        when(sessionRepository.existsById(2L)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> sessionService.participate(2L, 1L));
+        verify(participationRepository, never()).insert(anyLong(), anyLong());
     }
 
     @Test
-    @DisplayName("Participate - User Not Found")
-    void shouldThrowNotFoundExceptionWhenParticipateIsCalledWithExistingSessionIdAndNonExistingUserId() {
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+    @DisplayName("Participate - Session Full")
+    void shouldThrowSessionFullExceptionWhenParticipateIsCalledWithFullSession() {
+        when(participationRepository.reserveSeat(1L)).thenReturn(false);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
 
-        assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 2L));
+        assertThrows(SessionFullException.class, () -> sessionService.participate(1L, 1L));
+        verify(participationRepository, never()).insert(anyLong(), anyLong());
     }
 
     @Test
     @DisplayName("No Longer Participate - Session Not Found")
     void shouldThrowNotFoundExceptionWhenNoLongerParticipateIsCalledWithNonExistingSessionId() {
-        when(sessionRepository.findById(2L)).thenReturn(Optional.empty());
+        when(participationRepository.delete(2L, 1L)).thenReturn(false);
+        when(sessionRepository.existsById(2L)).thenReturn(false);
 
         assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(2L, 1L));
     }
 
     @Test
     @DisplayName("Participate - User Already in Session")
-    void shouldThrowBadRequestExceptionWhenParticipateIsCalledWithExistingSessionIdAndUserAlreadyInSession() {
-        mockSession.setUsers(Collections.singletonList(mockUser));
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+    void shouldThrowBadRequestExceptionWhenParticipateViolatesPrimaryKey() {
+        when(participationRepository.reserveSeat(1L)).thenReturn(true);
+        doThrow(new DuplicateKeyException("duplicate")).when(participationRepository).insert(1L, 1L);
 
         assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
     }
+
     @Test
     @DisplayName("No Longer Participate - User Not in Session")
     void shouldThrowBadRequestExceptionWhenNoLongerParticipateIsCalledWithExistingSessionIdAndUserNotInSession() {
-        mockSession.setUsers(new ArrayList<>());
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(mockSession));
+        when(participationRepository.delete(1L, 1L)).thenReturn(false);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
 
         assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(1L, 1L));
     }
 
-}
\ No newline at end of file
+}
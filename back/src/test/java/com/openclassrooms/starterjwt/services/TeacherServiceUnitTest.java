@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.Version;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,6 +10,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -17,7 +20,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TeacherServiceTest {
@@ -33,6 +36,7 @@ class TeacherServiceTest {
     @BeforeEach
     void setUp() {
         mockTeacher = createTeacher(1L);
+        ReflectionTestUtils.setField(teacherService, "snapshotTtlMs", 60000L);
     }
 
     private Teacher createTeacher(Long id) {
@@ -77,4 +81,98 @@ class TeacherServiceTest {
 
         assertNull(actualTeacher);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Loaded teachers are read from memory")
+    void shouldNotQueryRepositoryWhenSnapshotIsLoaded() {
+        Teacher secondTeacher = createTeacher(2L);
+        secondTeacher.setUpdatedAt(mockTeacher.getUpdatedAt().plusDays(1));
+        when(teacherRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(mockTeacher, secondTeacher));
+        teacherService.loadOnStartup();
+
+        assertEquals(Arrays.asList(mockTeacher, secondTeacher), teacherService.findAll());
+        assertEquals(secondTeacher, teacherService.findById(2L));
+        assertEquals(mockTeacher.getUpdatedAt(), teacherService.findUpdatedAt(1L));
+        assertEquals(2L, teacherService.findVersion().getCount());
+        assertEquals(secondTeacher.getUpdatedAt(), teacherService.findVersion().getUpdatedAt());
+
+        verify(teacherRepository, times(1)).findAllByOrderByIdAsc();
+        verifyNoMoreInteractions(teacherRepository);
+    }
+
+    @Test
+    @DisplayName("Unknown teacher is looked up in the repository")
+    void shouldQueryRepositoryWhenTeacherIsMissingFromSnapshot() {
+        when(teacherRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(mockTeacher));
+        when(teacherRepository.findById(3L)).thenReturn(Optional.empty());
+        teacherService.reload();
+
+        assertNull(teacherService.findById(3L));
+        verify(teacherRepository).findById(3L);
+    }
+
+    @Test
+    @DisplayName("Refresh only reloads the table when it changed")
+    void shouldReloadOnlyWhenVersionChanged() {
+        when(teacherRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(mockTeacher));
+        teacherService.reload();
+
+        when(teacherRepository.findVersion()).thenReturn(teacherService.findVersion());
+        teacherService.refreshAhead();
+        verify(teacherRepository, times(1)).findAllByOrderByIdAsc();
+
+        Teacher secondTeacher = createTeacher(2L);
+        when(teacherRepository.findVersion()).thenReturn(new TestVersion(2L, mockTeacher.getUpdatedAt()));
+        when(teacherRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(mockTeacher, secondTeacher));
+        teacherService.refreshAhead();
+
+        assertEquals(secondTeacher, teacherService.findById(2L));
+        verify(teacherRepository, times(2)).findAllByOrderByIdAsc();
+    }
+
+    @Test
+    @DisplayName("Failed refresh keeps the current snapshot")
+    void shouldKeepSnapshotWhenRefreshFails() {
+        when(teacherRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(mockTeacher));
+        teacherService.reload();
+        when(teacherRepository.findVersion()).thenThrow(new DataAccessResourceFailureException("down"));
+
+        teacherService.refreshAhead();
+
+        assertEquals(mockTeacher, teacherService.findById(1L));
+        verify(teacherRepository, never()).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Expired snapshot is not served")
+    void shouldQueryRepositoryWhenSnapshotHasExpired() {
+        ReflectionTestUtils.setField(teacherService, "snapshotTtlMs", 0L);
+        when(teacherRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(mockTeacher));
+        teacherService.reload();
+        when(teacherRepository.findById(1L)).thenReturn(Optional.of(mockTeacher));
+
+        assertEquals(mockTeacher, teacherService.findById(1L));
+        verify(teacherRepository).findById(1L);
+    }
+
+    private static class TestVersion implements Version {
+        private final Long count;
+
+        private final LocalDateTime updatedAt;
+
+        TestVersion(Long count, LocalDateTime updatedAt) {
+            this.count = count;
+            this.updatedAt = updatedAt;
+        }
+
+        @Override
+        public Long getCount() {
+            return count;
+        }
+
+        @Override
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+    }
+}
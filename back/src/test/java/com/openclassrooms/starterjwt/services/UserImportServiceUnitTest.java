@@ -0,0 +1,163 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.payload.response.UserImportReport;
+import com.openclassrooms.starterjwt.payload.response.UserImportReport.Status;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserImportService userImportService;
+
+    private final List<UserImportReport.Row> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userImportService = new UserImportService(userRepository, jdbcTemplate, transactionManager,
+            Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.shutdown();
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Import CSV reports every row")
+    void shouldReportEveryRowWhenImportingCsv() throws Exception {
+        when(userRepository.findExistingEmails(anyCollection()))
+            .thenReturn(Collections.emptyList())
+            .thenReturn(Collections.singletonList("taken@studio.com"));
+
+        UserImportReport report = userImportService.importUsers(body(
+            "password,email,firstName,lastName\n"
+                + "test!1234,first@studio.com,First,Studio\n"
+                + "test!1234,\"second@studio.com\",\"Sec, Ond\",Studio\n"
+                + "test!1234,taken@studio.com,Taken,Studio\n"
+                + "short,invalid@studio.com,Invalid,Studio\n"
+                + "test!1234,FIRST@studio.com,Again,Studio\n"), UserImportService.Format.CSV, rows::add);
+
+        assertEquals(5, report.getTotal());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getDuplicates());
+        assertEquals(1, report.getInvalid());
+
+        assertEquals(2, rows.get(0).getLine());
+        assertEquals(Status.IMPORTED, rows.get(1).getStatus());
+        assertEquals(Status.DUPLICATE, rows.get(2).getStatus());
+        assertEquals("password size must be between 6 and 40", rows.get(3).getMessage());
+        assertEquals(Status.DUPLICATE, rows.get(4).getStatus());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(), eq(2), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @DisplayName("Import NDJSON rejects malformed lines")
+    void shouldRejectMalformedLinesWhenImportingNdjson() throws Exception {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Collections.emptyList());
+
+        UserImportReport report = userImportService.importUsers(body(
+            "{\"email\":\"user@studio.com\",\"firstName\":\"User\",\"lastName\":\"Studio\",\"password\":\"test!1234\"}\n"
+                + "\n"
+                + "{not json\n"), UserImportService.Format.NDJSON, rows::add);
+
+        assertEquals(1, report.getImported());
+        assertEquals(3, rows.get(1).getLine());
+        assertEquals("Malformed JSON", rows.get(1).getMessage());
+        assertNull(rows.get(1).getEmail());
+    }
+
+    @Test
+    @DisplayName("Import replays a batch row by row on a concurrent duplicate")
+    void shouldReplayBatchRowByRowWhenEmailWasTakenConcurrently() throws Exception {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Collections.emptyList());
+        when(jdbcTemplate.batchUpdate(anyString(), any(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenThrow(new DuplicateKeyException("Duplicate entry"));
+        when(jdbcTemplate.update(anyString(), eq("first@studio.com"), any(), any(), any())).thenReturn(1);
+        when(jdbcTemplate.update(anyString(), eq("second@studio.com"), any(), any(), any()))
+            .thenThrow(new DuplicateKeyException("Duplicate entry"));
+
+        UserImportReport report = userImportService.importUsers(body(
+            "email,firstName,lastName,password\n"
+                + "first@studio.com,First,Studio,test!1234\n"
+                + "second@studio.com,Second,Studio,test!1234\n"), UserImportService.Format.CSV, rows::add);
+
+        assertEquals(Status.IMPORTED, rows.get(0).getStatus());
+        assertEquals(Status.DUPLICATE, rows.get(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("Import CSV without the expected header")
+    void shouldThrowBadRequestWhenCsvHeaderIsIncomplete() {
+        assertThrows(BadRequestException.class,
+            () -> userImportService.importUsers(body("email,password\n"), UserImportService.Format.CSV, rows::add));
+    }
+
+    @Test
+    @DisplayName("Hashing pool sized from the processors by default")
+    void shouldSizeHashingPoolFromProcessorsByDefault() {
+        UserImportService defaults = new UserImportService(userRepository, jdbcTemplate, transactionManager,
+            Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 0, 2);
+        try {
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(defaults, "hashingExecutor");
+            assertEquals(Runtime.getRuntime().availableProcessors(), executor.getMaximumPoolSize());
+        } finally {
+            defaults.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Split quoted CSV fields")
+    void shouldSplitQuotedCsvFields() {
+        assertEquals(Arrays.asList("a", "b,c", "d\"e", ""), UserImportService.splitCsv("a,\"b,c\",\"d\"\"e\","));
+        assertNull(UserImportService.splitCsv("a,\"b"));
+    }
+}
@@ -1,16 +1,20 @@
 package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -27,6 +31,15 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ParticipationRepository participationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SessionCache sessionCache;
+
     private User mockUser;
 
     @BeforeEach
@@ -46,11 +59,26 @@ class UserServiceTest {
     @Test
     @DisplayName("Delete User")
     void shouldDeleteUserWhenDeleteIsCalled() {
+        when(participationRepository.deleteAllForUser(1L)).thenReturn(Arrays.asList(2L, 3L));
+
         userService.delete(1L);
 
+        verify(sessionCache).evictAll(Arrays.asList(2L, 3L));
         verify(userRepository).deleteById(1L);
     }
 
+    @Test
+    @DisplayName("Delete User publishes UserDeletedEvent")
+    void shouldPublishUserDeletedEventWhenDeleteIsCalledWithExistingId() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+
+        userService.delete(1L);
+
+        ArgumentCaptor<UserDeletedEvent> event = ArgumentCaptor.forClass(UserDeletedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("user@studio.com", event.getValue().getEmail());
+    }
+
     @Test
     @DisplayName("Find User By Existing ID")
     void shouldReturnUserWhenFindByIdIsCalledWithExistingId() {
@@ -0,0 +1,172 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.payload.response.WaitlistPositionResponse;
+import com.openclassrooms.starterjwt.repository.ParticipationRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistServiceTest {
+
+    @Mock
+    private WaitlistRepository waitlistRepository;
+
+    @Mock
+    private ParticipationRepository participationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private SessionCache sessionCache;
+
+    private WaitlistService waitlistService;
+
+    @BeforeEach
+    void setUp() {
+        waitlistService = new WaitlistService(waitlistRepository, participationRepository, transactionManager, sessionCache);
+        ReflectionTestUtils.setField(waitlistService, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("Join waitlist returns the position")
+    void shouldReturnPositionWhenJoinIsCalled() {
+        when(waitlistRepository.isBookable(1L)).thenReturn(false);
+        when(waitlistRepository.position(1L, 2L)).thenReturn(3);
+
+        WaitlistPositionResponse response = waitlistService.join(1L, 2L);
+
+        verify(waitlistRepository).insert(1L, 2L);
+        assertEquals(3, response.getPosition());
+        assertFalse(response.isParticipating());
+    }
+
+    @Test
+    @DisplayName("Join waitlist - Already participating")
+    void shouldThrowBadRequestWhenJoinIsCalledByParticipant() {
+        when(participationRepository.exists(1L, 2L)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> waitlistService.join(1L, 2L));
+        verify(waitlistRepository, never()).insert(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Join waitlist - Seat still free")
+    void shouldThrowBadRequestWhenJoinIsCalledWhileSessionIsBookable() {
+        when(waitlistRepository.isBookable(1L)).thenReturn(true);
+
+        assertThrows(BadRequestException.class, () -> waitlistService.join(1L, 2L));
+        verify(waitlistRepository, never()).insert(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Join waitlist - Unknown session")
+    void shouldThrowNotFoundWhenJoinIsCalledForUnknownSession() {
+        when(waitlistRepository.isBookable(1L)).thenReturn(null);
+
+        assertThrows(NotFoundException.class, () -> waitlistService.join(1L, 2L));
+        verify(waitlistRepository, never()).insert(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Join waitlist - Already waiting")
+    void shouldThrowBadRequestWhenJoinIsCalledTwice() {
+        when(waitlistRepository.isBookable(1L)).thenReturn(false);
+        doThrow(new DuplicateKeyException("duplicate")).when(waitlistRepository).insert(1L, 2L);
+
+        assertThrows(BadRequestException.class, () -> waitlistService.join(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Position of a promoted user")
+    void shouldReportParticipationWhenUserWasPromoted() {
+        when(waitlistRepository.position(1L, 2L)).thenReturn(null);
+        when(participationRepository.exists(1L, 2L)).thenReturn(true);
+
+        WaitlistPositionResponse response = waitlistService.getPosition(1L, 2L);
+
+        assertNull(response.getPosition());
+        assertTrue(response.isParticipating());
+    }
+
+    @Test
+    @DisplayName("Position of an unknown user")
+    void shouldThrowNotFoundWhenUserIsNeitherWaitingNorParticipating() {
+        when(waitlistRepository.position(1L, 2L)).thenReturn(null);
+
+        assertThrows(NotFoundException.class, () -> waitlistService.getPosition(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Released seat is promoted by the worker, not by the request")
+    void shouldPromoteHeadOfQueueWhenSeatWasReleased() {
+        when(waitlistRepository.lockFreeSeats(1L)).thenReturn(1);
+        when(waitlistRepository.findHead(1L, 1)).thenReturn(Collections.singletonList(5L));
+
+        waitlistService.onSeatReleased(new SeatReleasedEvent(1L));
+        verifyNoInteractions(waitlistRepository);
+
+        waitlistService.promotePending();
+
+        verify(participationRepository).insertAll(1L, Collections.singletonList(5L));
+        verify(waitlistRepository).deleteAll(1L, Collections.singletonList(5L));
+        verify(sessionCache).evict(1L);
+    }
+
+    @Test
+    @DisplayName("Full session is not promoted")
+    void shouldNotPromoteWhenNoSeatIsFree() {
+        when(waitlistRepository.lockFreeSeats(1L)).thenReturn(0);
+
+        assertEquals(0, waitlistService.promote(1L));
+        verify(waitlistRepository, never()).findHead(anyLong(), anyInt());
+        verify(participationRepository, never()).insertAll(anyLong(), anyList());
+        verifyNoInteractions(sessionCache);
+    }
+
+    @Test
+    @DisplayName("Promotion is batched and resumed")
+    void shouldPromoteAgainWhenBatchWasFull() {
+        when(waitlistRepository.lockFreeSeats(1L)).thenReturn(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        when(waitlistRepository.findHead(1L, 2)).thenReturn(Arrays.asList(5L, 6L), Collections.singletonList(7L));
+
+        waitlistService.onSeatReleased(new SeatReleasedEvent(1L));
+        waitlistService.promotePending();
+        waitlistService.promotePending();
+
+        verify(participationRepository).insertAll(1L, Arrays.asList(5L, 6L));
+        verify(participationRepository).insertAll(1L, Collections.singletonList(7L));
+    }
+
+    @Test
+    @DisplayName("Failed promotion is retried")
+    void shouldRetryPromotionWhenDatabaseFails() {
+        when(waitlistRepository.lockFreeSeats(1L)).thenThrow(new QueryTimeoutException("timeout")).thenReturn(0);
+
+        waitlistService.onSeatReleased(new SeatReleasedEvent(1L));
+        waitlistService.promotePending();
+        waitlistService.promotePending();
+
+        verify(waitlistRepository, times(2)).lockFreeSeats(1L);
+    }
+}
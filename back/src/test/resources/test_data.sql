@@ -25,3 +25,6 @@ VALUES ('Yoga', '2024-12-01 01:00:00', 'Yoga session 2',
 -- Ajout de l'utilisateur Jane DOE à la dernière SESSION par email
 INSERT INTO PARTICIPATE (session_id, user_id)
 VALUES ((SELECT id FROM SESSIONS ORDER BY id DESC LIMIT 1), (SELECT id FROM USERS WHERE email = 'user2@studio.com' LIMIT 1));
+
+-- Mise à jour du nombre de participants des SESSIONS
+UPDATE SESSIONS s SET participant_count = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id);
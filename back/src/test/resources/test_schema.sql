@@ -1,7 +1,13 @@
 -- Suppression des contraintes de clé étrangère et des tables si elles existent
 SET FOREIGN_KEY_CHECKS = 0;
+DROP TABLE IF EXISTS `WAITLIST`;
+DROP TABLE IF EXISTS `DELETED_USERS`;
+DROP TABLE IF EXISTS `REVOKED_TOKENS`;
+DROP TABLE IF EXISTS `REFRESH_TOKENS`;
 DROP TABLE IF EXISTS `PARTICIPATE`;
 DROP TABLE IF EXISTS `SESSIONS`;
+DROP TABLE IF EXISTS `SESSION_SERIES_EXCEPTIONS`;
+DROP TABLE IF EXISTS `SESSION_SERIES`;
 DROP TABLE IF EXISTS `USERS`;
 DROP TABLE IF EXISTS `TEACHERS`;
 SET FOREIGN_KEY_CHECKS = 1;
@@ -12,7 +18,7 @@ CREATE TABLE `TEACHERS` (
   `last_name` VARCHAR(40),
   `first_name` VARCHAR(40),
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+  `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)
 );
 
 CREATE TABLE `USERS` (
@@ -23,7 +29,31 @@ CREATE TABLE `USERS` (
   `email` VARCHAR(255),
   `password` VARCHAR(255),
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+  `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+  UNIQUE KEY `UK_USERS_EMAIL` (`email`)
+);
+
+CREATE TABLE `SESSION_SERIES` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2000),
+  `teacher_id` INT,
+  `capacity` INT,
+  `recurrence` VARCHAR(255) NOT NULL,
+  `start_at` DATETIME NOT NULL,
+  `ends_at` DATETIME,
+  `materialized_until` DATETIME NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+  FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`),
+  KEY `IDX_SESSION_SERIES_MATERIALIZED_UNTIL` (`materialized_until`)
+);
+
+CREATE TABLE `SESSION_SERIES_EXCEPTIONS` (
+  `series_id` INT NOT NULL,
+  `date` DATE NOT NULL,
+  PRIMARY KEY (`series_id`, `date`),
+  FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`) ON DELETE CASCADE
 );
 
 CREATE TABLE `SESSIONS` (
@@ -32,14 +62,61 @@ CREATE TABLE `SESSIONS` (
   `description` VARCHAR(2000),
   `date` TIMESTAMP,
   `teacher_id` INT,
+  `capacity` INT,
+  `participant_count` INT NOT NULL DEFAULT 0,
+  `series_id` INT,
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-  FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`)
+  `updated_at` DATETIME(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+  FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`),
+  FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`) ON DELETE SET NULL,
+  KEY `IDX_SESSIONS_DATE` (`date`),
+  KEY `IDX_SESSIONS_TEACHER_DATE` (`teacher_id`, `date`),
+  KEY `IDX_SESSIONS_SERIES_DATE` (`series_id`, `date`)
 );
 
 CREATE TABLE `PARTICIPATE` (
-  `user_id` INT,
-  `session_id` INT,
+  `user_id` INT NOT NULL,
+  `session_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`),
   FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE,
   FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`)
 );
+
+CREATE TABLE `REFRESH_TOKENS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `token_hash` CHAR(64) NOT NULL,
+  `user_id` INT NOT NULL,
+  `expires_at` DATETIME NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY `UK_REFRESH_TOKENS_TOKEN_HASH` (`token_hash`),
+  KEY `IDX_REFRESH_TOKENS_EXPIRES_AT` (`expires_at`),
+  FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE
+);
+
+CREATE TABLE `REVOKED_TOKENS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `token_hash` CHAR(64) NOT NULL,
+  `expires_at` DATETIME NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY `UK_REVOKED_TOKENS_TOKEN_HASH` (`token_hash`),
+  KEY `IDX_REVOKED_TOKENS_EXPIRES_AT` (`expires_at`)
+);
+
+CREATE TABLE `DELETED_USERS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `user_id` INT NOT NULL,
+  `expires_at` DATETIME NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  KEY `IDX_DELETED_USERS_EXPIRES_AT` (`expires_at`)
+);
+
+CREATE TABLE `WAITLIST` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY `UK_WAITLIST_SESSION_USER` (`session_id`, `user_id`),
+  KEY `IDX_WAITLIST_SESSION_ID` (`session_id`, `id`),
+  FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE,
+  FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE
+);
@@ -549,6 +549,9 @@ describe('Sessions to participate page', () => {
               cy.intercept('GET', `/api/session/${session.id}`, {
               body: { ...session, users: [] },
               }).as('session');
+              cy.intercept('GET', `/api/session/${session.id}/waitlist/${user.id}`, {
+              statusCode: 404,
+              }).as('waitlist');
       
               cy.get('mat-card.item').eq(session.id - 1).within(() => {
                   cy.get('mat-card-title').contains(session.name, {matchCase: false}).should('exist');
@@ -577,6 +580,9 @@ describe('Sessions to participate page', () => {
               cy.intercept('GET', '/api/session/1', {
                   body: { ...session, users: [1] }
               });
+              cy.intercept('GET', `/api/session/${session.id}/waitlist/${user.id}`, {
+                  body: { sessionId: session.id, userId: user.id, position: null, participating: true }
+              });
 
               cy.get('mat-card-title').find('button[mat-raised-button]').contains('Participate').click();
               
@@ -584,6 +590,9 @@ describe('Sessions to participate page', () => {
               cy.intercept('GET', `/api/session/${session.id}`, {
               body: { ...session, users: [] }
               });
+              cy.intercept('GET', `/api/session/${session.id}/waitlist/${user.id}`, {
+              statusCode: 404
+              });
 
               cy.get('mat-card-title').find('button[mat-raised-button]').contains('Participate').should('exist');
           });
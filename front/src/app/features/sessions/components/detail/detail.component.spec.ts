@@ -16,7 +16,8 @@ import { TeacherService} from "../../../../services/teacher.service";
 import { DetailComponent } from './detail.component';
 import {NgZone} from "@angular/core";
 import {Session} from "../../interfaces/session.interface";
-import {of} from "rxjs";
+import {of, throwError} from "rxjs";
+import {HttpErrorResponse} from "@angular/common/http";
 
 
 describe('DetailComponent', () => {
@@ -87,14 +88,18 @@ describe('DetailComponent', () => {
     const id = "1";
     component.sessionId = id;
     const detailSpy = jest.spyOn(sessionApiService, 'detail').mockReturnValue(of(mockSession));
+    const waitlistSpy = jest.spyOn(sessionApiService, 'waitlistPosition')
+      .mockReturnValue(throwError(() => new HttpErrorResponse({ status: 404 })));
 
     component.ngOnInit();
 
     fixture.detectChanges();
     expect(component.userId).toEqual(mockSessionService.sessionInformation.id.toString());
 
-    expect(detailSpy).toHaveBeenCalledWith(id);
+    expect(detailSpy).toHaveBeenCalledWith(id, false);
+    expect(waitlistSpy).toHaveBeenCalledWith(id, component.userId);
     expect(component.session).toEqual(mockSession);
+    expect(component.isParticipate).toBe(false);
   });
 
   it('should call participate method of sessionApiService and fetchSession when participate is called', () => {
@@ -102,13 +107,15 @@ describe('DetailComponent', () => {
 
     component.session = mockSession;
     const participateSpy = jest.spyOn(sessionApiService, 'participate').mockReturnValue(of(undefined));
-    const detailSpy = jest.spyOn(sessionApiService, 'detail').mockReturnValue(of({...mockSession, users: [1]}));
+    const detailSpy = jest.spyOn(sessionApiService, 'detail').mockReturnValue(of({...mockSession, participantCount: 1}));
+    jest.spyOn(sessionApiService, 'waitlistPosition')
+      .mockReturnValue(of({ sessionId: 1, userId: 1, position: null, participating: true }));
 
     component.participate();
 
     expect(participateSpy).toHaveBeenCalledWith(component.sessionId, component.userId);
-    expect(detailSpy).toHaveBeenCalledWith(component.sessionId);
-    expect(component.session.users).toContain(1);
+    expect(detailSpy).toHaveBeenCalledWith(component.sessionId, false);
+    expect(component.session.participantCount).toBe(1);
     expect(component.isParticipate).toBe(true);
   });
 
@@ -117,13 +124,15 @@ describe('DetailComponent', () => {
 
     component.session = mockSession;
     const unparticipateSpy = jest.spyOn(sessionApiService, 'unParticipate').mockReturnValue(of(undefined));
-    const detailSpy = jest.spyOn(sessionApiService, 'detail').mockReturnValue(of({...mockSession, users: []}));
+    const detailSpy = jest.spyOn(sessionApiService, 'detail').mockReturnValue(of({...mockSession, participantCount: 0}));
+    jest.spyOn(sessionApiService, 'waitlistPosition')
+      .mockReturnValue(throwError(() => new HttpErrorResponse({ status: 404 })));
 
     component.unParticipate();
 
     expect(unparticipateSpy).toHaveBeenCalledWith(component.sessionId, component.userId);
-    expect(detailSpy).toHaveBeenCalledWith(component.sessionId);
-    expect(component.session.users).not.toContain(1);
+    expect(detailSpy).toHaveBeenCalledWith(component.sessionId, false);
+    expect(component.session.participantCount).toBe(0);
     expect(component.isParticipate).toBe(false);
   });
 
@@ -6,6 +6,7 @@ import { Teacher } from '../../../../interfaces/teacher.interface';
 import { SessionService } from '../../../../services/session.service';
 import { TeacherService } from '../../../../services/teacher.service';
 import { Session } from '../../interfaces/session.interface';
+import { WaitlistPosition } from '../../interfaces/waitlistPosition.interface';
 import { SessionApiService } from '../../services/session-api.service';
 
 @Component({
@@ -64,14 +65,20 @@ export class DetailComponent implements OnInit {
 
   private fetchSession(): void {
     this.sessionApiService
-      .detail(this.sessionId)
+      .detail(this.sessionId, false)
       .subscribe((session: Session) => {
         this.session = session;
-        this.isParticipate = session.users.some(u => u === this.sessionService.sessionInformation!.id);
         this.teacherService
           .detail(session.teacher_id.toString())
           .subscribe((teacher: Teacher) => this.teacher = teacher);
       });
+    this.sessionApiService
+      .waitlistPosition(this.sessionId, this.userId)
+      .subscribe({
+        next: (position: WaitlistPosition) => this.isParticipate = position.participating,
+        // Neither participating nor waiting
+        error: () => this.isParticipate = false
+      });
   }
 
 }
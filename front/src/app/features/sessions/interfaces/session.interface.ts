@@ -4,7 +4,9 @@ export interface Session {
   description: string;
   date: Date;
   teacher_id: number;
-  users: number[];
+  users?: number[];
   createdAt?: Date;
   updatedAt?: Date;
+  capacity?: number;
+  participantCount?: number;
 }
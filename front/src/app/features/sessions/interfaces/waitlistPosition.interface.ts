@@ -0,0 +1,6 @@
+export interface WaitlistPosition {
+  sessionId: number;
+  userId: number;
+  position: number | null;
+  participating: boolean;
+}
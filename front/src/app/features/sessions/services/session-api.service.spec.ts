@@ -91,4 +91,19 @@ describe('SessionApiService', () => {
   
     req.flush(null);
   });
-});
\ No newline at end of file
+
+  it('should get the waitlist position of a user', () => {
+    const sessionId = '1';
+    const userId = '1';
+    let participating: boolean | undefined;
+
+    service.waitlistPosition(sessionId, userId).subscribe(position => participating = position.participating);
+
+    const req = httpMock.expectOne(`api/session/${sessionId}/waitlist/${userId}`);
+
+    expect(req.request.method).toBe('GET');
+
+    req.flush({ sessionId: 1, userId: 1, position: null, participating: true });
+    expect(participating).toBe(true);
+  });
+});
@@ -2,6 +2,7 @@ import { HttpClient } from '@angular/common/http';
 import { Injectable } from '@angular/core';
 import { Observable } from 'rxjs';
 import { Session } from '../interfaces/session.interface';
+import { WaitlistPosition } from '../interfaces/waitlistPosition.interface';
 
 @Injectable({
   providedIn: 'root'
@@ -17,8 +18,9 @@ export class SessionApiService {
     return this.httpClient.get<Session[]>(this.pathService);
   }
 
-  public detail(id: string): Observable<Session> {
-    return this.httpClient.get<Session>(`${this.pathService}/${id}`);
+  public detail(id: string, includeUsers = false): Observable<Session> {
+    const options = includeUsers ? { params: { include: 'users' } } : {};
+    return this.httpClient.get<Session>(`${this.pathService}/${id}`, options);
   }
 
   public delete(id: string): Observable<any> {
@@ -41,4 +43,11 @@ export class SessionApiService {
     return this.httpClient.delete<void>(`${this.pathService}/${id}/participate/${userId}`);
   }
 
+  /**
+   * Whether the user participates or waits for a seat; fails with a 404 when neither.
+   */
+  public waitlistPosition(id: string, userId: string): Observable<WaitlistPosition> {
+    return this.httpClient.get<WaitlistPosition>(`${this.pathService}/${id}/waitlist/${userId}`);
+  }
+
 }
@@ -0,0 +1,87 @@
+import { TestBed } from '@angular/core/testing';
+import { expect } from '@jest/globals';
+import { HTTP_INTERCEPTORS, HttpClient } from '@angular/common/http';
+import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
+import { Router } from '@angular/router';
+import { subscribeSpyTo } from '@hirez_io/observer-spy';
+
+import { JwtInterceptor } from './jwt.interceptor';
+import { RefreshTokenInterceptor } from './refresh-token.interceptor';
+import { SessionService } from '../services/session.service';
+import { mockSessionInformation } from '../../test-constants';
+
+describe('RefreshTokenInterceptor', () => {
+  let httpClient: HttpClient;
+  let httpMock: HttpTestingController;
+  let sessionService: SessionService;
+  const router = { navigate: jest.fn() };
+
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      imports: [HttpClientTestingModule],
+      providers: [
+        { provide: Router, useValue: router },
+        { provide: HTTP_INTERCEPTORS, useClass: RefreshTokenInterceptor, multi: true },
+        { provide: HTTP_INTERCEPTORS, useClass: JwtInterceptor, multi: true },
+      ]
+    });
+
+    httpClient = TestBed.inject(HttpClient);
+    httpMock = TestBed.inject(HttpTestingController);
+    sessionService = TestBed.inject(SessionService);
+    sessionService.logIn({ ...mockSessionInformation, token: 'expired', refreshToken: 'refresh' });
+    router.navigate.mockClear();
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+  });
+
+  it('should refresh the access token on a 401 and retry the request with it', async () => {
+    const observerSpy = subscribeSpyTo(httpClient.get('api/session'));
+
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    const refresh = httpMock.expectOne('api/auth/refresh');
+    expect(refresh.request.body).toEqual({ refreshToken: 'refresh' });
+    refresh.flush({ ...mockSessionInformation, token: 'fresh', refreshToken: 'rotated' });
+    const retry = httpMock.expectOne('api/session');
+    expect(retry.request.headers.get('Authorization')).toBe('Bearer fresh');
+    retry.flush([]);
+    await observerSpy.onComplete();
+
+    expect(observerSpy.getLastValue()).toEqual([]);
+    expect(sessionService.sessionInformation!.refreshToken).toBe('rotated');
+  });
+
+  it('should share a single refresh between concurrent requests', () => {
+    subscribeSpyTo(httpClient.get('api/session'));
+    subscribeSpyTo(httpClient.get('api/teacher'));
+
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/teacher').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/auth/refresh').flush({ ...mockSessionInformation, token: 'fresh', refreshToken: 'rotated' });
+
+    httpMock.expectOne('api/session').flush([]);
+    httpMock.expectOne('api/teacher').flush([]);
+  });
+
+  it('should log out when the refresh token is rejected', () => {
+    const observerSpy = subscribeSpyTo(httpClient.get('api/session'), { expectErrors: true });
+
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/auth/refresh').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    expect(observerSpy.receivedError()).toBe(true);
+    expect(sessionService.isLogged).toBe(false);
+    expect(router.navigate).toHaveBeenCalledWith(['login']);
+  });
+
+  it('should not refresh on a 401 from the auth endpoints', () => {
+    const observerSpy = subscribeSpyTo(httpClient.post('api/auth/login', {}), { expectErrors: true });
+
+    httpMock.expectOne('api/auth/login').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    expect(observerSpy.receivedError()).toBe(true);
+    expect(sessionService.isLogged).toBe(true);
+  });
+});
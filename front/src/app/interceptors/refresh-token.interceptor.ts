@@ -0,0 +1,67 @@
+import { HttpBackend, HttpClient, HttpErrorResponse, HttpEvent, HttpHandler, HttpInterceptor, HttpRequest } from "@angular/common/http";
+import { Injectable } from "@angular/core";
+import { Router } from '@angular/router';
+import { Observable, catchError, finalize, shareReplay, switchMap, tap, throwError } from 'rxjs';
+import { SessionInformation } from '../interfaces/sessionInformation.interface';
+import { SessionService } from '../services/session.service';
+
+/**
+ * Access tokens are short-lived: when a request is rejected with a 401, the refresh token is
+ * exchanged for a new access token and the request is sent again. Concurrent failures share
+ * the same refresh, and a failed refresh logs the user out.
+ *
+ * Must be registered before the JwtInterceptor, so that the retried request carries the new token.
+ */
+@Injectable({ providedIn: 'root' })
+export class RefreshTokenInterceptor implements HttpInterceptor {
+
+  private pathService = 'api/auth';
+
+  // Bypasses the interceptors, so that the refresh itself is never retried
+  private httpClient: HttpClient;
+
+  private refreshing$: Observable<SessionInformation> | undefined;
+
+  constructor(httpBackend: HttpBackend,
+              private sessionService: SessionService,
+              private router: Router) {
+    this.httpClient = new HttpClient(httpBackend);
+  }
+
+  public intercept(request: HttpRequest<any>, next: HttpHandler): Observable<HttpEvent<any>> {
+    const sentToken = this.sessionService.sessionInformation?.token;
+    return next.handle(request).pipe(
+      catchError((error: unknown) => {
+        if (!(error instanceof HttpErrorResponse) || error.status !== 401
+            || request.url.startsWith(this.pathService)
+            || !this.sessionService.sessionInformation?.refreshToken) {
+          return throwError(() => error);
+        }
+        if (this.sessionService.sessionInformation.token !== sentToken) {
+          // Already refreshed while this request was in flight
+          return next.handle(request);
+        }
+        return this.refresh().pipe(switchMap(() => next.handle(request)));
+      })
+    );
+  }
+
+  private refresh(): Observable<SessionInformation> {
+    if (!this.refreshing$) {
+      const refreshToken = this.sessionService.sessionInformation!.refreshToken;
+      this.refreshing$ = this.httpClient
+        .post<SessionInformation>(`${this.pathService}/refresh`, { refreshToken })
+        .pipe(
+          tap((sessionInformation: SessionInformation) => this.sessionService.logIn(sessionInformation)),
+          catchError((error: unknown) => {
+            this.sessionService.logOut();
+            this.router.navigate(['login']);
+            return throwError(() => error);
+          }),
+          finalize(() => this.refreshing$ = undefined),
+          shareReplay(1)
+        );
+    }
+    return this.refreshing$;
+  }
+}